@@ -1,17 +1,23 @@
 package com.balysv.materialmenu.demo;
 
+import android.content.Intent;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.support.v4.view.GravityCompat;
 import android.support.v4.widget.DrawerLayout;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.widget.SeekBar;
 
 import com.balysv.materialmenu.MaterialMenuDrawable;
 import com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import com.balysv.materialmenu.MaterialMenuGroup;
+import com.balysv.materialmenu.MaterialMenuOffsetBinding;
 import com.balysv.materialmenu.MaterialMenuView;
+import com.balysv.materialmenu.demo.benchmark.BenchmarkActivity;
 
 import java.util.Random;
 
@@ -20,11 +26,12 @@ import static com.balysv.materialmenu.MaterialMenuDrawable.Stroke;
 
 public class DemoActivity extends AppCompatActivity implements View.OnClickListener, SeekBar.OnSeekBarChangeListener {
 
-    private Toolbar          toolbar;
-    private MaterialMenuView materialMenuView;
-    private IconState        materialMenuState;
-    private DrawerLayout     drawerLayout;
-    private boolean          direction;
+    private Toolbar                   toolbar;
+    private MaterialMenuView          materialMenuView;
+    private MaterialMenuGroup         materialMenuGroup;
+    private MaterialMenuOffsetBinding drawerBinding;
+    private IconState                 materialMenuState;
+    private DrawerLayout              drawerLayout;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -52,26 +59,19 @@ public class DemoActivity extends AppCompatActivity implements View.OnClickListe
         materialMenuView = (MaterialMenuView) findViewById(R.id.material_menu_button);
         materialMenuView.setOnClickListener(this);
 
+        // toolbar icon and view are mirrored, drive both from a single animation
+        materialMenuGroup = new MaterialMenuGroup();
+        materialMenuGroup.add(getMaterialMenu());
+        materialMenuGroup.add(materialMenuView);
+
         drawerLayout = ((DrawerLayout) findViewById(R.id.drawer_layout));
         drawerLayout.setScrimColor(Color.parseColor("#66000000"));
+        drawerBinding = new MaterialMenuOffsetBinding(materialMenuGroup, MaterialMenuDrawable.AnimationState.BURGER_ARROW);
         drawerLayout.setDrawerListener(new DrawerLayout.SimpleDrawerListener() {
 
             @Override
             public void onDrawerSlide(View drawerView, float slideOffset) {
-                getMaterialMenu().setTransformationOffset(
-                    MaterialMenuDrawable.AnimationState.BURGER_ARROW,
-                    direction ? 2 - slideOffset : slideOffset
-                );
-            }
-
-            @Override
-            public void onDrawerOpened(android.view.View drawerView) {
-                direction = true;
-            }
-
-            @Override
-            public void onDrawerClosed(android.view.View drawerView) {
-                direction = false;
+                drawerBinding.setOffset(slideOffset);
             }
         });
 
@@ -98,6 +98,19 @@ public class DemoActivity extends AppCompatActivity implements View.OnClickListe
         refreshDrawerState();
     }
 
+    @Override public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.demo, menu);
+        return true;
+    }
+
+    @Override public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_benchmark) {
+            startActivity(new Intent(this, BenchmarkActivity.class));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
     @Override public void onClick(View v) {
         final int id = v.getId();
         switch (id) {
@@ -146,11 +159,11 @@ public class DemoActivity extends AppCompatActivity implements View.OnClickListe
     }
 
     private void refreshDrawerState() {
-        this.direction = drawerLayout.isDrawerOpen(GravityCompat.START);
+        drawerBinding.setReversed(drawerLayout.isDrawerOpen(GravityCompat.START));
     }
 
     @Override public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
-        materialMenuView.setTransformationDuration(400 + progress);
+        materialMenuGroup.setTransformationDuration(400 + progress);
     }
 
     @Override public void onStartTrackingTouch(SeekBar seekBar) {
@@ -164,13 +177,11 @@ public class DemoActivity extends AppCompatActivity implements View.OnClickListe
     }
 
     private void animateIconState(IconState iconState) {
-        getMaterialMenu().animateIconState(iconState);
-        materialMenuView.animateIconState(iconState);
+        materialMenuGroup.animateIconState(iconState);
     }
 
     private void setIconState(IconState iconState) {
-        getMaterialMenu().setIconState(iconState);
-        materialMenuView.setIconState(iconState);
+        materialMenuGroup.setIconState(iconState);
     }
 
     private static IconState generateNewState(IconState previous) {
@@ -0,0 +1,81 @@
+package com.balysv.materialmenu.demo.benchmark;
+
+import android.os.Debug;
+
+/**
+ * Micro benchmark run on the main thread by {@link BenchmarkActivity}. Reports wall time,
+ * thread CPU time and allocations per operation.
+ */
+public abstract class Benchmark {
+
+    private static final int DEFAULT_WARMUP_ITERATIONS = 1000;
+
+    private final String name;
+    private final int    warmupIterations;
+    private final int    iterations;
+
+    protected Benchmark(String name, int iterations) {
+        this(name, DEFAULT_WARMUP_ITERATIONS, iterations);
+    }
+
+    protected Benchmark(String name, int warmupIterations, int iterations) {
+        this.name = name;
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Called once before warm-up
+     */
+    protected void setUp() {
+    }
+
+    /**
+     * Called once after warm-up, before the measured iterations
+     */
+    protected void onWarmedUp() {
+    }
+
+    /**
+     * Perform a single operation
+     */
+    protected abstract void run();
+
+    /**
+     * Additional results appended to the report
+     *
+     * @param iterations number of measured iterations
+     */
+    protected String describeResults(int iterations) {
+        return "";
+    }
+
+    @SuppressWarnings("deprecation")
+    public String measure() {
+        setUp();
+        for (int i = 0; i < warmupIterations; i++) {
+            run();
+        }
+        onWarmedUp();
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        final long startCpu = Debug.threadCpuTimeNanos();
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            run();
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long elapsedCpu = Debug.threadCpuTimeNanos() - startCpu;
+        Debug.stopAllocCounting();
+        final int allocations = Debug.getThreadAllocCount();
+
+        return String.format("%-32s %8d ns/op %8d cpu ns/op %6.1f allocs/op%s",
+            name, elapsed / iterations, elapsedCpu / iterations, (float) allocations / iterations,
+            describeResults(iterations));
+    }
+}
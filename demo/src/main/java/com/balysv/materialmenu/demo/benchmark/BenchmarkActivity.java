@@ -0,0 +1,101 @@
+package com.balysv.materialmenu.demo.benchmark;
+
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.View;
+import android.widget.TextView;
+
+import com.balysv.materialmenu.MaterialMenuDrawable;
+import com.balysv.materialmenu.demo.R;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.Stroke;
+
+/**
+ * Runs library micro benchmarks on the main thread, where drawables are normally used.
+ * Results are only meaningful on a release build of a device that is not otherwise busy.
+ */
+public class BenchmarkActivity extends AppCompatActivity {
+
+    private static final int[] STRESS_COUNTS = { 100, 500, 1000 };
+
+    private TextView output;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.benchmark);
+
+        output = (TextView) findViewById(R.id.benchmark_output);
+        findViewById(R.id.benchmark_run).setOnClickListener(new View.OnClickListener() {
+            @Override public void onClick(View v) {
+                runBenchmarks(createBenchmarks(), 0, new StringBuilder());
+            }
+        });
+    }
+
+    private List<Benchmark> createBenchmarks() {
+        final List<Benchmark> benchmarks = new ArrayList<>();
+
+        benchmarks.add(new Benchmark("new MaterialMenuDrawable", 10000) {
+            @Override protected void run() {
+                new MaterialMenuDrawable(BenchmarkActivity.this, Color.WHITE, Stroke.REGULAR);
+            }
+        });
+
+        benchmarks.add(new Benchmark("ConstantState.newDrawable", 10000) {
+            private Drawable.ConstantState state;
+
+            @Override protected void setUp() {
+                final MaterialMenuDrawable drawable = new MaterialMenuDrawable(BenchmarkActivity.this, Color.WHITE, Stroke.REGULAR);
+                drawable.setIconState(IconState.ARROW);
+                state = drawable.getConstantState();
+            }
+
+            @Override protected void run() {
+                state.newDrawable();
+            }
+        });
+
+        benchmarks.add(new Benchmark("newDrawable + mutate", 10000) {
+            private Drawable.ConstantState state;
+
+            @Override protected void setUp() {
+                state = new MaterialMenuDrawable(BenchmarkActivity.this, Color.WHITE, Stroke.REGULAR).getConstantState();
+            }
+
+            @Override protected void run() {
+                state.newDrawable().mutate();
+            }
+        });
+
+        benchmarks.add(new TransitionsBenchmark(this));
+        benchmarks.add(new ReplayBenchmark(this, false));
+        benchmarks.add(new ReplayBenchmark(this, true));
+
+        for (int count : STRESS_COUNTS) {
+            benchmarks.add(new StressBenchmark(this, count));
+        }
+
+        return benchmarks;
+    }
+
+    private void runBenchmarks(final List<Benchmark> benchmarks, final int index, final StringBuilder results) {
+        if (index == benchmarks.size()) return;
+
+        results.append(benchmarks.get(index).measure()).append('\n');
+        output.setText(results);
+
+        // let the results draw between benchmarks
+        output.post(new Runnable() {
+            @Override public void run() {
+                runBenchmarks(benchmarks, index + 1, results);
+            }
+        });
+    }
+}
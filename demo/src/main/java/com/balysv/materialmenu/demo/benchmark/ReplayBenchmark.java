@@ -0,0 +1,105 @@
+package com.balysv.materialmenu.demo.benchmark;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Picture;
+import android.view.View;
+
+import com.balysv.materialmenu.ManualAnimationClock;
+import com.balysv.materialmenu.MaterialMenu;
+import com.balysv.materialmenu.MaterialMenuDrawable;
+import com.balysv.materialmenu.MaterialMenuTrace;
+import com.balysv.materialmenu.MaterialMenuView;
+import com.balysv.materialmenu.demo.R;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.Stroke;
+
+/**
+ * Replays a recorded gesture trace frame by frame on a {@link ManualAnimationClock} and records
+ * every frame into a {@link Picture}. One operation is one full replay of the trace.
+ * <p>
+ * Traces are recorded with a {@link com.balysv.materialmenu.MaterialMenuRecorder} and
+ * {@link MaterialMenuTrace#writeTo(java.io.OutputStream)}. The bundled one is synthetic, it is
+ * generated by {@code DrawerTraceGenerator} in the library tests: a drawer opened and closed
+ * by dragging along eased curves, a few taps and a drag released halfway. Replace it with a
+ * recorded trace to benchmark real gestures.
+ */
+class ReplayBenchmark extends Benchmark {
+
+    private static final int  WARMUP_REPLAYS = 20;
+    private static final int  REPLAYS        = 100;
+    private static final long FRAME_INTERVAL = 16;
+
+    private final Context context;
+    private final boolean view;
+
+    private final ManualAnimationClock clock   = new ManualAnimationClock();
+    private final Picture              picture = new Picture();
+
+    private MaterialMenuTrace    trace;
+    private MaterialMenuDrawable drawable;
+    private MaterialMenu         menu;
+    private View                 host;
+
+    /**
+     * @param view true to replay through a {@link MaterialMenuView}
+     */
+    ReplayBenchmark(Context context, boolean view) {
+        super(view ? "replay drawer trace view" : "replay drawer trace drawable", WARMUP_REPLAYS, REPLAYS);
+        this.context = context;
+        this.view = view;
+    }
+
+    @Override protected void setUp() {
+        final InputStream in = context.getResources().openRawResource(R.raw.drawer_trace);
+        try {
+            trace = MaterialMenuTrace.read(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read trace", e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        if (view) {
+            final MaterialMenuView materialMenuView = new MaterialMenuView(context);
+            final int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            materialMenuView.measure(spec, spec);
+            materialMenuView.layout(0, 0, materialMenuView.getMeasuredWidth(), materialMenuView.getMeasuredHeight());
+            drawable = materialMenuView.getDrawable();
+            menu = materialMenuView;
+            host = materialMenuView;
+        } else {
+            drawable = new MaterialMenuDrawable(context, Color.WHITE, Stroke.REGULAR);
+            menu = drawable;
+        }
+        drawable.setAnimationClock(clock);
+    }
+
+    @Override protected void run() {
+        menu.setIconState(IconState.BURGER);
+
+        // keep replaying after the last call until running transformations settle
+        final long end = trace.getDuration() + MaterialMenuDrawable.DEFAULT_TRANSFORM_DURATION;
+        int next = 0;
+        for (long time = 0; time <= end; time += FRAME_INTERVAL) {
+            next = trace.replay(menu, next, time);
+            clock.advance(FRAME_INTERVAL);
+
+            final Canvas canvas = picture.beginRecording(drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight());
+            if (host != null) {
+                host.draw(canvas);
+            } else {
+                drawable.draw(canvas);
+            }
+            picture.endRecording();
+        }
+    }
+}
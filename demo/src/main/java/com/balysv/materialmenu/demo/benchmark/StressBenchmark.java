@@ -0,0 +1,123 @@
+package com.balysv.materialmenu.demo.benchmark;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+import com.balysv.materialmenu.ManualAnimationClock;
+import com.balysv.materialmenu.MaterialMenuDrawable;
+import com.balysv.materialmenu.MaterialMenuView;
+
+import java.util.Random;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+
+/**
+ * Drives many {@link MaterialMenuView}s through simultaneous random transitions on a
+ * {@link ManualAnimationClock} and records all of them into a {@link Picture} every frame, the
+ * way a list screen records its display list. One operation is one frame, so results are
+ * per-frame CPU time and allocations, plus invalidations requested by the icons. The same run
+ * on bare drawables needs no device and is {@code MaterialMenuStressTest} in the library tests.
+ */
+class StressBenchmark extends Benchmark {
+
+    private static final int  WARMUP_FRAMES  = 120;
+    private static final int  FRAMES         = 600;
+    private static final long FRAME_INTERVAL = 16;
+    private static final long SEED           = 42;
+
+    private static final IconState[] ICON_STATES = IconState.values();
+
+    private final Context context;
+    private final int     count;
+
+    private final ManualAnimationClock clock   = new ManualAnimationClock();
+    private final Picture              picture = new Picture();
+    private final Random               random  = new Random(SEED);
+
+    private MaterialMenuDrawable[] drawables;
+    private View[]                 hosts;
+    private int                    invalidations;
+
+    /**
+     * @param count number of icons
+     */
+    StressBenchmark(Context context, int count) {
+        super(String.format("stress %4d views", count), WARMUP_FRAMES, FRAMES);
+        this.context = context;
+        this.count = count;
+    }
+
+    @Override protected void setUp() {
+        drawables = new MaterialMenuDrawable[count];
+        hosts = new View[count];
+
+        final int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        for (int i = 0; i < count; i++) {
+            final MaterialMenuView view = new MaterialMenuView(context);
+            view.measure(spec, spec);
+            view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+
+            final MaterialMenuDrawable drawable = view.getDrawable();
+            drawable.setAnimationClock(clock);
+            drawable.setCallback(new CountingCallback(view));
+            drawables[i] = drawable;
+            hosts[i] = view;
+        }
+    }
+
+    @Override protected void onWarmedUp() {
+        invalidations = 0;
+    }
+
+    @Override protected void run() {
+        clock.advance(FRAME_INTERVAL);
+
+        final Canvas canvas = picture.beginRecording(drawables[0].getIntrinsicWidth(), drawables[0].getIntrinsicHeight());
+        for (int i = 0; i < count; i++) {
+            final MaterialMenuDrawable drawable = drawables[i];
+            if (!drawable.isRunning()) {
+                drawable.animateIconState(nextState(drawable.getIconState()));
+            }
+
+            hosts[i].draw(canvas);
+        }
+        picture.endRecording();
+    }
+
+    @Override protected String describeResults(int iterations) {
+        return String.format(" %6.1f invalidations/frame", (float) invalidations / iterations);
+    }
+
+    private IconState nextState(IconState current) {
+        final IconState next = ICON_STATES[random.nextInt(ICON_STATES.length)];
+        return next != current ? next : nextState(current);
+    }
+
+    /**
+     * Counts invalidations and forwards them to the hosting view
+     */
+    private class CountingCallback implements Drawable.Callback {
+
+        private final View host;
+
+        CountingCallback(View host) {
+            this.host = host;
+        }
+
+        @Override public void invalidateDrawable(Drawable who) {
+            invalidations++;
+            host.invalidateDrawable(who);
+        }
+
+        @Override public void scheduleDrawable(Drawable who, Runnable what, long when) {
+            host.scheduleDrawable(who, what, when);
+        }
+
+        @Override public void unscheduleDrawable(Drawable who, Runnable what) {
+            host.unscheduleDrawable(who, what);
+        }
+    }
+}
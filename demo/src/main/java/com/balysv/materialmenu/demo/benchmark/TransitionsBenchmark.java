@@ -0,0 +1,94 @@
+package com.balysv.materialmenu.demo.benchmark;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Picture;
+
+import com.balysv.materialmenu.ManualAnimationClock;
+import com.balysv.materialmenu.MaterialMenuDrawable;
+import com.balysv.materialmenu.MaterialMenuView;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.AnimationState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.Stroke;
+
+/**
+ * Runs every supported transition of every stroke once, animated, sprung and scrubbed, and
+ * draws each frame. One operation is one full pass.
+ */
+class TransitionsBenchmark extends Benchmark {
+
+    private static final int  WARMUP_PASSES  = 5;
+    private static final int  PASSES         = 20;
+    private static final long FRAME_INTERVAL = 16;
+    private static final int  SCRUB_STEPS    = 32;
+
+    private static final IconState[]      ICON_STATES      = IconState.values();
+    private static final AnimationState[] ANIMATION_STATES = AnimationState.values();
+
+    private final Context context;
+
+    private final ManualAnimationClock clock   = new ManualAnimationClock();
+    private final Picture              picture = new Picture();
+
+    private MaterialMenuDrawable[] drawables;
+
+    TransitionsBenchmark(Context context) {
+        super("all transitions", WARMUP_PASSES, PASSES);
+        this.context = context;
+    }
+
+    @Override protected void setUp() {
+        final Stroke[] strokes = Stroke.values();
+        drawables = new MaterialMenuDrawable[strokes.length + 1];
+        for (int i = 0; i < strokes.length; i++) {
+            drawables[i] = new MaterialMenuDrawable(context, Color.WHITE, strokes[i]);
+        }
+
+        // inflation path of the view
+        drawables[strokes.length] = new MaterialMenuView(context).getDrawable();
+
+        for (MaterialMenuDrawable drawable : drawables) {
+            drawable.setAnimationClock(clock);
+        }
+    }
+
+    @Override protected void run() {
+        for (MaterialMenuDrawable drawable : drawables) {
+            for (IconState from : ICON_STATES) {
+                for (IconState to : ICON_STATES) {
+                    if (from == to) continue;
+
+                    drawable.setIconState(from);
+                    drawable.animateIconState(to);
+                    drawFrames(drawable);
+
+                    drawable.setIconState(from);
+                    drawable.springIconState(to, 0);
+                    drawFrames(drawable);
+                }
+            }
+
+            for (AnimationState state : ANIMATION_STATES) {
+                for (int step = 0; step <= SCRUB_STEPS; step++) {
+                    drawable.scrubTransformationOffset(state, 2f * step / SCRUB_STEPS);
+                    draw(drawable);
+                }
+            }
+        }
+    }
+
+    private void drawFrames(MaterialMenuDrawable drawable) {
+        while (clock.hasPendingFrames()) {
+            clock.advance(FRAME_INTERVAL);
+            draw(drawable);
+        }
+    }
+
+    private void draw(MaterialMenuDrawable drawable) {
+        final Canvas canvas = picture.beginRecording(drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight());
+        drawable.draw(canvas);
+        picture.endRecording();
+    }
+}
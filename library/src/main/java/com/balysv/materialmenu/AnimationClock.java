@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+/**
+ * Time source for {@link MaterialMenuDrawable} transformations. By default transformations are
+ * timed by the platform animation framework; a custom clock replaces it entirely, i.e.
+ * {@link ManualAnimationClock} to step through frames at exact times in tests and benchmarks.
+ *
+ * @see MaterialMenuDrawable#setAnimationClock(AnimationClock)
+ */
+public interface AnimationClock {
+
+    /**
+     * Callback invoked once on the next frame, it has to be posted again for following frames
+     */
+    interface FrameCallback {
+        /**
+         * @param frameTimeMillis time of the frame in {@link #uptimeMillis()} time base
+         */
+        void doFrame(long frameTimeMillis);
+    }
+
+    /**
+     * Return the current time in milliseconds
+     */
+    long uptimeMillis();
+
+    /**
+     * Invoke the callback on the next frame
+     */
+    void postFrameCallback(FrameCallback callback);
+
+    /**
+     * Remove a posted callback, does nothing if it is not posted
+     */
+    void removeFrameCallback(FrameCallback callback);
+}
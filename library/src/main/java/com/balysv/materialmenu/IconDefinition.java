@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import java.util.Arrays;
+
+import static com.balysv.materialmenu.KeyframeTable.ALPHA;
+import static com.balysv.materialmenu.KeyframeTable.CHANNELS;
+import static com.balysv.materialmenu.KeyframeTable.MAX_LINE_COUNT;
+import static com.balysv.materialmenu.KeyframeTable.MAX_STATE_COUNT;
+import static com.balysv.materialmenu.KeyframeTable.PIVOT_X;
+import static com.balysv.materialmenu.KeyframeTable.PIVOT_Y;
+import static com.balysv.materialmenu.KeyframeTable.ROTATION;
+import static com.balysv.materialmenu.KeyframeTable.START_X;
+import static com.balysv.materialmenu.KeyframeTable.START_Y;
+import static com.balysv.materialmenu.KeyframeTable.STOP_X;
+import static com.balysv.materialmenu.KeyframeTable.STOP_Y;
+import static com.balysv.materialmenu.KeyframeTable.WINDOW_SIZE;
+
+/**
+ * Definition of custom icon states for {@link MaterialMenuDrawable}. Each state describes every
+ * line by its end points, rotation around a pivot and alpha. Coordinates are in dip within the
+ * 40x40 dip drawable. Lines morph linearly between states, optionally within a timing window
+ * of the transformation so that lines can move one after another.
+ * <p>
+ * Usage:
+ * <pre>
+ * IconDefinition definition = new IconDefinition(2);
+ * int plus = definition.addState();
+ * definition.setLine(plus, 0, 10, 20, 30, 20);
+ * definition.setRotation(plus, 0, 0, 20, 20);
+ * definition.setLine(plus, 1, 20, 10, 20, 30);
+ * definition.setRotation(plus, 1, 0, 20, 20);
+ * int close = definition.addState();
+ * definition.setLine(close, 0, 10, 20, 30, 20);
+ * definition.setRotation(close, 0, 45, 20, 20);
+ * definition.setLine(close, 1, 20, 10, 20, 30);
+ * definition.setRotation(close, 1, 45, 20, 20);
+ * drawable.setIconDefinition(definition.compile());
+ * drawable.animateKeyframeState(close);
+ * </pre>
+ */
+public class IconDefinition {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final int lineCount;
+
+    private int     stateCount;
+    private float[] keyframes;
+    private float[] windows;
+
+    /**
+     * @param lineCount number of lines of every state, at most 64
+     */
+    public IconDefinition(int lineCount) {
+        if (lineCount <= 0 || lineCount > MAX_LINE_COUNT) {
+            throw new IllegalArgumentException(String.format("Line count must be between 1 and %s", MAX_LINE_COUNT));
+        }
+
+        this.lineCount = lineCount;
+        this.keyframes = new float[INITIAL_CAPACITY * lineCount * CHANNELS];
+        this.windows = new float[0];
+    }
+
+    /**
+     * Add a new state with all lines collapsed at the origin, at most 256 states can be added
+     *
+     * @return index of the new state
+     */
+    public int addState() {
+        if (stateCount == MAX_STATE_COUNT) {
+            throw new IllegalStateException(String.format("Definition can not have more than %s states", MAX_STATE_COUNT));
+        }
+
+        final int state = stateCount++;
+
+        if (keyframes.length < stateCount * lineCount * CHANNELS) {
+            keyframes = Arrays.copyOf(keyframes, keyframes.length * 2);
+        }
+
+        for (int line = 0; line < lineCount; line++) {
+            keyframes[offset(state, line) + ALPHA] = 1;
+        }
+
+        // grow the transformation windows, every line spans the whole transformation by default
+        final float[] grown = new float[stateCount * stateCount * lineCount * WINDOW_SIZE];
+        for (int from = 0; from < stateCount; from++) {
+            for (int to = 0; to < stateCount; to++) {
+                for (int line = 0; line < lineCount; line++) {
+                    final int w = windowOffset(stateCount, from, to, line);
+                    if (from < state && to < state) {
+                        final int old = windowOffset(state, from, to, line);
+                        grown[w] = windows[old];
+                        grown[w + 1] = windows[old + 1];
+                    } else {
+                        grown[w] = 0;
+                        grown[w + 1] = 1;
+                    }
+                }
+            }
+        }
+        windows = grown;
+
+        return state;
+    }
+
+    /**
+     * Set end points of a line
+     */
+    public IconDefinition setLine(int state, int line, float startX, float startY, float stopX, float stopY) {
+        final int offset = offset(state, line);
+        keyframes[offset + START_X] = startX;
+        keyframes[offset + START_Y] = startY;
+        keyframes[offset + STOP_X] = stopX;
+        keyframes[offset + STOP_Y] = stopY;
+        return this;
+    }
+
+    /**
+     * Set rotation of a line around a pivot, in degrees. Pivots are interpolated as well and
+     * default to the origin, so lines rotating around the same point should share a pivot
+     * in every state.
+     */
+    public IconDefinition setRotation(int state, int line, float rotation, float pivotX, float pivotY) {
+        final int offset = offset(state, line);
+        keyframes[offset + ROTATION] = rotation;
+        keyframes[offset + PIVOT_X] = pivotX;
+        keyframes[offset + PIVOT_Y] = pivotY;
+        return this;
+    }
+
+    /**
+     * Set alpha of a line, between 0 and 1
+     */
+    public IconDefinition setAlpha(int state, int line, float alpha) {
+        keyframes[offset(state, line) + ALPHA] = alpha;
+        return this;
+    }
+
+    /**
+     * Restrict the morph of a line to a window of the transformation between two states
+     *
+     * @param start start point [0, 1)
+     * @param end   end point (0, 1]
+     */
+    public IconDefinition setWindow(int from, int to, int line, float start, float end) {
+        if (start < 0 || end > 1 || start >= end) {
+            throw new IllegalArgumentException(
+                String.format("Window [%s, %s] must be within [0, 1]", start, end)
+            );
+        }
+
+        final int w = windowOffset(stateCount, checkState(from), checkState(to), checkLine(line));
+        windows[w] = start;
+        windows[w + 1] = end;
+        return this;
+    }
+
+    /**
+     * Compile the definition into a table that can be shared between drawables
+     */
+    public KeyframeTable compile() {
+        if (stateCount == 0) {
+            throw new IllegalStateException("Definition has no states");
+        }
+
+        return new KeyframeTable(
+            stateCount, lineCount,
+            Arrays.copyOf(keyframes, stateCount * lineCount * CHANNELS),
+            Arrays.copyOf(windows, windows.length)
+        );
+    }
+
+    private int offset(int state, int line) {
+        return (checkState(state) * lineCount + checkLine(line)) * CHANNELS;
+    }
+
+    private int windowOffset(int stateCount, int from, int to, int line) {
+        return ((from * stateCount + to) * lineCount + line) * WINDOW_SIZE;
+    }
+
+    private int checkState(int state) {
+        if (state < 0 || state >= stateCount) {
+            throw new IllegalArgumentException(String.format("Unknown state %s", state));
+        }
+        return state;
+    }
+
+    private int checkLine(int line) {
+        if (line < 0 || line >= lineCount) {
+            throw new IllegalArgumentException(String.format("Line must be between 0 and %s", lineCount - 1));
+        }
+        return line;
+    }
+}
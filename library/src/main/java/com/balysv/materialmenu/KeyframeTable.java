@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Compiled form of an {@link IconDefinition}. All states, lines and timing windows are kept in
+ * flat primitive buffers and every transformation is evaluated by the same interpolation loop,
+ * so the number of states does not add any per-frame branching.
+ * <p>
+ * Tables can be stored in a versioned binary format with {@link #writeTo(OutputStream)} and
+ * loaded without parsing or copying with {@link #map(AssetManager, String)}. Mapped assets must
+ * be stored uncompressed in the APK, i.e. with {@code aaptOptions { noCompress 'mmkf' }}.
+ * <p>
+ * Binary format, little endian:
+ * <pre>
+ * int     magic        'MMKF'
+ * int     version      1
+ * int     stateCount
+ * int     lineCount
+ * float[] keyframes    stateCount * lineCount * 8 channels
+ * float[] windows      stateCount * stateCount * lineCount * 2
+ * </pre>
+ */
+public final class KeyframeTable {
+
+    private static final int MAGIC       = 0x464B4D4D; // 'MMKF' read as little endian
+    private static final int VERSION     = 1;
+    private static final int HEADER_SIZE = 4 * 4;
+
+    /**
+     * Upper bounds of tables, so that the sizes of a table always fit in an int
+     */
+    static final int MAX_STATE_COUNT = 256;
+    static final int MAX_LINE_COUNT  = 64;
+
+    /**
+     * Keyframe channels of a single line in a single state
+     */
+    static final int START_X  = 0;
+    static final int START_Y  = 1;
+    static final int STOP_X   = 2;
+    static final int STOP_Y   = 3;
+    static final int ROTATION = 4;
+    static final int PIVOT_X  = 5;
+    static final int PIVOT_Y  = 6;
+    static final int ALPHA    = 7;
+    static final int CHANNELS = 8;
+
+    /**
+     * Timing window of a single line in a single transformation: start, end
+     */
+    static final int WINDOW_SIZE = 2;
+
+    private final int         stateCount;
+    private final int         lineCount;
+    private final FloatBuffer keyframes;
+    private final FloatBuffer windows;
+
+    KeyframeTable(int stateCount, int lineCount, float[] keyframes, float[] windows) {
+        this(stateCount, lineCount, FloatBuffer.wrap(keyframes), FloatBuffer.wrap(windows));
+    }
+
+    private KeyframeTable(int stateCount, int lineCount, FloatBuffer keyframes, FloatBuffer windows) {
+        this.stateCount = stateCount;
+        this.lineCount = lineCount;
+        this.keyframes = keyframes;
+        this.windows = windows;
+    }
+
+    /**
+     * Map a table stored as an uncompressed asset. The table reads directly from the mapped
+     * pages, which are shared with every other process mapping the same APK.
+     *
+     * @param assets asset manager
+     * @param name   asset name
+     * @return mapped table
+     * @throws IOException if the asset can not be opened, is compressed or is not a valid table
+     */
+    public static KeyframeTable map(AssetManager assets, String name) throws IOException {
+        final AssetFileDescriptor descriptor = assets.openFd(name);
+        try {
+            return map(descriptor);
+        } finally {
+            descriptor.close();
+        }
+    }
+
+    /**
+     * Map a table from an asset file descriptor, the descriptor can be closed afterwards
+     *
+     * @see #map(AssetManager, String)
+     */
+    public static KeyframeTable map(AssetFileDescriptor descriptor) throws IOException {
+        final FileInputStream stream = descriptor.createInputStream();
+        try {
+            final FileChannel channel = stream.getChannel();
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength()));
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Read a table from a buffer in the binary format. The table keeps a view of the buffer
+     * instead of copying it, so the buffer must not be modified afterwards.
+     *
+     * @param buffer buffer positioned at the start of the table
+     * @return table backed by the buffer
+     * @throws IOException if the buffer does not contain a valid table
+     */
+    public static KeyframeTable read(ByteBuffer buffer) throws IOException {
+        final ByteBuffer data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (data.remaining() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a keyframe table");
+        }
+
+        final int version = data.getInt(4);
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported keyframe table version %s", version));
+        }
+
+        final int stateCount = data.getInt(8);
+        final int lineCount = data.getInt(12);
+        if (stateCount <= 0 || stateCount > MAX_STATE_COUNT || lineCount <= 0 || lineCount > MAX_LINE_COUNT) {
+            throw new IOException(String.format("Invalid keyframe table size %sx%s", stateCount, lineCount));
+        }
+
+        final long keyframesSize = (long) stateCount * lineCount * CHANNELS;
+        final long windowsSize = (long) stateCount * stateCount * lineCount * WINDOW_SIZE;
+        if (data.remaining() < HEADER_SIZE + (keyframesSize + windowsSize) * 4) {
+            throw new IOException("Truncated keyframe table");
+        }
+
+        data.position(HEADER_SIZE);
+        final FloatBuffer floats = data.asFloatBuffer();
+        floats.limit((int) keyframesSize);
+        final FloatBuffer keyframes = floats.slice();
+        floats.limit((int) (keyframesSize + windowsSize)).position((int) keyframesSize);
+        final FloatBuffer windows = floats.slice();
+
+        return new KeyframeTable(stateCount, lineCount, keyframes, windows);
+    }
+
+    /**
+     * Write the table in the binary format
+     *
+     * @param out stream to write to, not closed
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        final int keyframesSize = keyframes.limit();
+        final int windowsSize = windows.limit();
+        final ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE + (keyframesSize + windowsSize) * 4)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+        data.putInt(MAGIC).putInt(VERSION).putInt(stateCount).putInt(lineCount);
+        for (int i = 0; i < keyframesSize; i++) {
+            data.putFloat(keyframes.get(i));
+        }
+        for (int i = 0; i < windowsSize; i++) {
+            data.putFloat(windows.get(i));
+        }
+
+        out.write(data.array());
+    }
+
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Resolve all lines of a transformation into segments laid out by
+     * {@link MaterialMenuGeometry#SEGMENT_STRIDE}
+     *
+     * @param from     state to transform from
+     * @param to       state to transform to
+     * @param fraction transformation progress between 0 and 1
+     * @param dip      size of one definition unit in pixels
+     * @param segments output, at least {@link #getLineCount()} segments long
+     */
+    void evaluate(int from, int to, float fraction, float dip, float[] segments) {
+        final int fromOffset = from * lineCount * CHANNELS;
+        final int toOffset = to * lineCount * CHANNELS;
+        final int windowOffset = (from * stateCount + to) * lineCount * WINDOW_SIZE;
+
+        for (int line = 0; line < lineCount; line++) {
+            final int a = fromOffset + line * CHANNELS;
+            final int b = toOffset + line * CHANNELS;
+            final int w = windowOffset + line * WINDOW_SIZE;
+
+            final float windowStart = windows.get(w);
+            final float windowEnd = windows.get(w + 1);
+            final float t;
+            if (fraction <= windowStart) {
+                t = 0;
+            } else if (fraction >= windowEnd) {
+                t = 1;
+            } else {
+                t = (fraction - windowStart) / (windowEnd - windowStart);
+            }
+
+            float startX = lerp(keyframes.get(a + START_X), keyframes.get(b + START_X), t);
+            float startY = lerp(keyframes.get(a + START_Y), keyframes.get(b + START_Y), t);
+            float stopX = lerp(keyframes.get(a + STOP_X), keyframes.get(b + STOP_X), t);
+            float stopY = lerp(keyframes.get(a + STOP_Y), keyframes.get(b + STOP_Y), t);
+            final float rotation = lerp(keyframes.get(a + ROTATION), keyframes.get(b + ROTATION), t);
+            final float pivotX = lerp(keyframes.get(a + PIVOT_X), keyframes.get(b + PIVOT_X), t);
+            final float pivotY = lerp(keyframes.get(a + PIVOT_Y), keyframes.get(b + PIVOT_Y), t);
+            float alpha = lerp(keyframes.get(a + ALPHA), keyframes.get(b + ALPHA), t);
+
+            if (startX == stopX && startY == stopY) {
+                alpha = 0;
+            }
+
+            if (rotation != 0) {
+                final double radians = Math.toRadians(rotation);
+                final float cos = (float) Math.cos(radians);
+                final float sin = (float) Math.sin(radians);
+                final float startDx = startX - pivotX, startDy = startY - pivotY;
+                final float stopDx = stopX - pivotX, stopDy = stopY - pivotY;
+                startX = pivotX + startDx * cos - startDy * sin;
+                startY = pivotY + startDx * sin + startDy * cos;
+                stopX = pivotX + stopDx * cos - stopDy * sin;
+                stopY = pivotY + stopDx * sin + stopDy * cos;
+            }
+
+            final int offset = line * MaterialMenuGeometry.SEGMENT_STRIDE;
+            segments[offset] = startX * dip;
+            segments[offset + 1] = startY * dip;
+            segments[offset + 2] = stopX * dip;
+            segments[offset + 3] = stopY * dip;
+            segments[offset + 4] = (int) (alpha * 255);
+        }
+    }
+
+    private static float lerp(float from, float to, float t) {
+        return from + (to - from) * t;
+    }
+}
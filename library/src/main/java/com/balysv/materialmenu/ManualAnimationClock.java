@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link AnimationClock} advanced by hand. Frames are produced only by {@link #advance(long)},
+ * so transformations run deterministically and as fast as they can be computed, without a
+ * Looper or the platform animation framework driving them.
+ * <p>
+ * Usage:
+ * <pre>
+ * ManualAnimationClock clock = new ManualAnimationClock();
+ * drawable.setAnimationClock(clock);
+ * drawable.animateIconState(IconState.ARROW);
+ * clock.advance(400); // halfway through the default transformation
+ * clock.runUntilIdle(16);
+ * </pre>
+ * The clock is not thread safe, drive it from a single thread.
+ */
+public class ManualAnimationClock implements AnimationClock {
+
+    private final List<FrameCallback> callbacks   = new ArrayList<>();
+    private final List<FrameCallback> dispatching = new ArrayList<>();
+
+    private long time;
+
+    public ManualAnimationClock() {
+        this(0);
+    }
+
+    /**
+     * @param time initial time in milliseconds
+     */
+    public ManualAnimationClock(long time) {
+        this.time = time;
+    }
+
+    @Override public long uptimeMillis() {
+        return time;
+    }
+
+    @Override public void postFrameCallback(FrameCallback callback) {
+        callbacks.add(callback);
+    }
+
+    @Override public void removeFrameCallback(FrameCallback callback) {
+        callbacks.remove(callback);
+        dispatching.remove(callback);
+    }
+
+    /**
+     * Advance the time and produce a single frame at the new time
+     *
+     * @param deltaMillis time to advance by, may be 0 to produce a frame at the same time
+     */
+    public void advance(long deltaMillis) {
+        if (deltaMillis < 0) {
+            throw new IllegalArgumentException("Time can not go backwards");
+        }
+
+        time += deltaMillis;
+
+        // callbacks posted while dispatching run on the next frame
+        dispatching.addAll(callbacks);
+        callbacks.clear();
+        while (!dispatching.isEmpty()) {
+            dispatching.remove(dispatching.size() - 1).doFrame(time);
+        }
+    }
+
+    /**
+     * Produce frames at a fixed interval until no callbacks are posted anymore
+     *
+     * @param frameIntervalMillis time between frames, i.e. 16 for 60 fps
+     * @return number of produced frames
+     */
+    public int runUntilIdle(long frameIntervalMillis) {
+        if (frameIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Frame interval must be positive");
+        }
+
+        int frames = 0;
+        while (hasPendingFrames()) {
+            advance(frameIntervalMillis);
+            frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * Return true if a callback is waiting for the next frame
+     */
+    public boolean hasPendingFrames() {
+        return !callbacks.isEmpty();
+    }
+}
@@ -81,6 +81,14 @@ public interface MaterialMenu {
      */
     void setAnimationListener(Animator.AnimatorListener listener);
 
+    /**
+     * Set listener notified with the transformation progress on every frame. Use it to drive
+     * other effects from the icon animation instead of running a parallel animator
+     *
+     * @param listener new listener or null to remove any listener
+     */
+    void setTransformationListener(MaterialMenuDrawable.TransformationListener listener);
+
     /**
      * Enable RTL layout. Flips all icons horizontally
      *
@@ -96,4 +104,16 @@ public interface MaterialMenu {
      *                       {@link com.balysv.materialmenu.MaterialMenuDrawable#TRANSFORMATION_END}.
      */
     IconState setTransformationOffset(MaterialMenuDrawable.AnimationState animationState, float value);
+
+    /**
+     * Set a transformation value from a gesture, i.e. on navigation drawer slide. Unlike
+     * {@link #setTransformationOffset(MaterialMenuDrawable.AnimationState, float)} the value
+     * is clamped instead of validated, non-finite values are ignored and repeated calls within a
+     * frame are coalesced.
+     *
+     * @param animationState state to set value in
+     * @param value          clamped between {@link com.balysv.materialmenu.MaterialMenuDrawable#TRANSFORMATION_START} and
+     *                       {@link com.balysv.materialmenu.MaterialMenuDrawable#TRANSFORMATION_END}.
+     */
+    IconState scrubTransformationOffset(MaterialMenuDrawable.AnimationState animationState, float value);
 }
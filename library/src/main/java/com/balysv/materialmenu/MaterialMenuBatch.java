@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.Arrays;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.AnimationState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.Stroke;
+import static com.balysv.materialmenu.MaterialMenuGeometry.LINE_COUNT;
+import static com.balysv.materialmenu.MaterialMenuGeometry.SEGMENT_STRIDE;
+
+/**
+ * Renders many icons of the same color, stroke and scale into a single canvas, i.e. rows of a
+ * custom drawn list. Icon state is kept in primitive arrays, all icons are resolved in one pass
+ * and their lines are emitted with one {@code drawLines} call per distinct line alpha, which
+ * is a single call whenever no icon is fading a line.
+ * <p>
+ * Icons are not animated by the batch, drive them with
+ * {@link #setTransformationOffset(int, AnimationState, float)} from your own animation.
+ */
+public class MaterialMenuBatch {
+
+    private static final int   INITIAL_CAPACITY     = 16;
+    private static final int   POINTS_PER_LINE      = 4;
+    private static final int   ALPHA_LEVELS         = 256;
+    private static final float TRANSFORMATION_START = 0;
+    private static final float TRANSFORMATION_MID   = 1.0f;
+    private static final float TRANSFORMATION_END   = 2.0f;
+
+    private static final AnimationState[] ANIMATION_STATES = AnimationState.values();
+
+    private final MaterialMenuGeometry geometry;
+    private final Paint                paint        = new Paint();
+    private final int[]                alphaCounts  = new int[ALPHA_LEVELS];
+    private final int[]                alphaOffsets = new int[ALPHA_LEVELS];
+
+    private boolean mirrored;
+
+    private int       size;
+    private float[]   positions;
+    private float[]   values;
+    private int[]     animationStates;
+    private boolean[] visible;
+
+    private float[] points;
+    private float[] sortedPoints;
+    private int[]   pointAlphas;
+
+    public MaterialMenuBatch(Context context, int color, Stroke stroke) {
+        this(context, color, stroke, MaterialMenuDrawable.DEFAULT_SCALE);
+    }
+
+    public MaterialMenuBatch(Context context, int color, Stroke stroke, int scale) {
+        this.geometry = MaterialMenuGeometry.obtain(context.getResources(), stroke, scale);
+
+        paint.setAntiAlias(true);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(geometry.strokeWidth);
+        paint.setColor(color);
+
+        ensureCapacity(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Add an icon
+     *
+     * @param x     left of the icon
+     * @param y     top of the icon
+     * @param state initial icon state
+     * @return index of the icon
+     */
+    public int add(float x, float y, IconState state) {
+        ensureCapacity(size + 1);
+
+        final int index = size++;
+        visible[index] = true;
+        setPosition(index, x, y);
+        setIconState(index, state);
+        return index;
+    }
+
+    /**
+     * Remove all icons
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void setPosition(int index, float x, float y) {
+        positions[index * 2] = x;
+        positions[index * 2 + 1] = y;
+    }
+
+    public void setVisible(int index, boolean visible) {
+        this.visible[index] = visible;
+    }
+
+    public void setColor(int color) {
+        paint.setColor(color);
+    }
+
+    /**
+     * Mirror all icons horizontally, i.e. for right-to-left layouts
+     */
+    public void setMirrored(boolean mirrored) {
+        this.mirrored = mirrored;
+    }
+
+    public void setIconState(int index, IconState state) {
+        switch (state) {
+            case BURGER:
+                setTransformation(index, AnimationState.BURGER_ARROW, TRANSFORMATION_START);
+                break;
+            case ARROW:
+                setTransformation(index, AnimationState.BURGER_ARROW, TRANSFORMATION_MID);
+                break;
+            case X:
+                setTransformation(index, AnimationState.BURGER_X, TRANSFORMATION_MID);
+                break;
+            case CHECK:
+                setTransformation(index, AnimationState.BURGER_CHECK, TRANSFORMATION_MID);
+                break;
+            case HIDE:
+                setTransformation(index, AnimationState.BURGER_HIDE, TRANSFORMATION_MID);
+                break;
+        }
+    }
+
+    /**
+     * Set transformation of an icon, the offset is clamped between 0 and 2
+     *
+     * @see MaterialMenu#setTransformationOffset(AnimationState, float)
+     */
+    public void setTransformationOffset(int index, AnimationState animationState, float offset) {
+        setTransformation(index, animationState, Math.max(TRANSFORMATION_START, Math.min(TRANSFORMATION_END, offset)));
+    }
+
+    private void setTransformation(int index, AnimationState animationState, float value) {
+        animationStates[index] = animationState.ordinal();
+        values[index] = value;
+    }
+
+    public int getIntrinsicWidth() {
+        return geometry.width;
+    }
+
+    public int getIntrinsicHeight() {
+        return geometry.height;
+    }
+
+    public void draw(Canvas canvas) {
+        // resolve all icons and count lines per alpha
+        Arrays.fill(alphaCounts, 0);
+        int lines = 0;
+        for (int i = 0; i < size; i++) {
+            if (!visible[i]) continue;
+
+            final float x = positions[i * 2];
+            final float y = positions[i * 2 + 1];
+            final float[] segments = geometry.compute(ANIMATION_STATES[animationStates[i]], values[i], mirrored);
+            for (int s = 0; s < MaterialMenuGeometry.SEGMENTS_SIZE; s += SEGMENT_STRIDE) {
+                final int alpha = (int) segments[s + 4];
+                if (alpha <= 0) continue;
+
+                final int p = lines * POINTS_PER_LINE;
+                points[p] = segments[s] + x;
+                points[p + 1] = segments[s + 1] + y;
+                points[p + 2] = segments[s + 2] + x;
+                points[p + 3] = segments[s + 3] + y;
+                pointAlphas[lines] = alpha;
+                alphaCounts[alpha]++;
+                lines++;
+            }
+        }
+
+        if (lines == 0) return;
+
+        // group lines by alpha so every alpha is drawn with a single call
+        int offset = 0;
+        for (int alpha = 0; alpha < ALPHA_LEVELS; alpha++) {
+            alphaOffsets[alpha] = offset;
+            offset += alphaCounts[alpha];
+        }
+        for (int line = 0; line < lines; line++) {
+            final int target = alphaOffsets[pointAlphas[line]]++ * POINTS_PER_LINE;
+            System.arraycopy(points, line * POINTS_PER_LINE, sortedPoints, target, POINTS_PER_LINE);
+        }
+
+        final int paintAlpha = paint.getAlpha();
+        offset = 0;
+        for (int alpha = 0; alpha < ALPHA_LEVELS; alpha++) {
+            final int count = alphaCounts[alpha];
+            if (count == 0) continue;
+
+            paint.setAlpha(alpha * paintAlpha / 255);
+            canvas.drawLines(sortedPoints, offset * POINTS_PER_LINE, count * POINTS_PER_LINE, paint);
+            offset += count;
+        }
+        paint.setAlpha(paintAlpha);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (positions != null && visible.length >= capacity) return;
+
+        final int newCapacity = Math.max(capacity, positions == null ? 0 : visible.length * 2);
+        if (positions == null) {
+            positions = new float[newCapacity * 2];
+            values = new float[newCapacity];
+            animationStates = new int[newCapacity];
+            visible = new boolean[newCapacity];
+        } else {
+            positions = Arrays.copyOf(positions, newCapacity * 2);
+            values = Arrays.copyOf(values, newCapacity);
+            animationStates = Arrays.copyOf(animationStates, newCapacity);
+            visible = Arrays.copyOf(visible, newCapacity);
+        }
+        points = new float[newCapacity * LINE_COUNT * POINTS_PER_LINE];
+        sortedPoints = new float[points.length];
+        pointAlphas = new int[newCapacity * LINE_COUNT];
+    }
+}
@@ -21,17 +21,25 @@ import android.animation.Animator;
 import android.animation.Animator.AnimatorListener;
 import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
 import android.content.Context;
+import android.content.res.ColorStateList;
 import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.ColorFilter;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.util.LayoutDirection;
 import android.util.Property;
-import android.util.TypedValue;
+import android.util.SparseArray;
+import android.view.animation.AnimationUtils;
 import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Interpolator;
 
@@ -104,6 +112,19 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
         }
     }
 
+    /**
+     * Listener notified on every transformation frame, either animated or set
+     * through {@link #setTransformationOffset(AnimationState, float)}
+     */
+    public interface TransformationListener {
+        /**
+         * @param animationState state being transformed
+         * @param value          transformation value between 0 and 2
+         * @param fraction       progress between the two icons of {@code animationState}, between 0 and 1
+         */
+        void onTransformation(AnimationState animationState, float value, float fraction);
+    }
+
     public enum Stroke {
         /**
          * 3 dip
@@ -118,7 +139,7 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
          */
         THIN(1);
 
-        private final int strokeWidth;
+        final int strokeWidth;
 
         Stroke(int strokeWidth) {
             this.strokeWidth = strokeWidth;
@@ -142,50 +163,61 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
     public static final int     DEFAULT_TRANSFORM_DURATION = 800;
     public static final boolean DEFAULT_VISIBLE            = true;
 
-    private static final int BASE_DRAWABLE_WIDTH  = 40;
-    private static final int BASE_DRAWABLE_HEIGHT = 40;
-    private static final int BASE_ICON_WIDTH      = 20;
-    private static final int BASE_CIRCLE_RADIUS   = 18;
-
-    private static final float ARROW_MID_LINE_ANGLE = 180;
-    private static final float ARROW_TOP_LINE_ANGLE = 135;
-    private static final float ARROW_BOT_LINE_ANGLE = 225;
-    private static final float X_TOP_LINE_ANGLE     = 44;
-    private static final float X_BOT_LINE_ANGLE     = -44;
-    private static final float X_ROTATION_ANGLE     = 90;
-    private static final float CHECK_MIDDLE_ANGLE   = 135;
-    private static final float CHECK_BOTTOM_ANGLE   = -90;
-
     private static final float TRANSFORMATION_START = 0;
     private static final float TRANSFORMATION_MID   = 1.0f;
     private static final float TRANSFORMATION_END   = 2.0f;
 
-    private static final int DEFAULT_CIRCLE_ALPHA = 200;
+    // pressed circle is drawn below the lines, keep it faint enough for them to stay readable
+    private static final int DEFAULT_CIRCLE_ALPHA = 0x33;
 
-    private final float diph;
-    private final float dip1;
-    private final float dip2;
-    private final float dip3;
-    private final float dip4;
-    private final float dip8;
+    // lines closer than this to horizontal or vertical are drawn as pixel snapped rects
+    private static final float SNAP_TOLERANCE = 0.01f;
 
-    private final int   width;
-    private final int   height;
-    private final float strokeWidth;
-    private final float iconWidth;
-    private final float topPadding;
-    private final float sidePadding;
-    private final float circleRadius;
+    private static final PorterDuff.Mode DEFAULT_TINT_MODE = PorterDuff.Mode.SRC_IN;
 
-    private final Stroke stroke;
+    /**
+     * Time in microseconds a single frame of a running transformation may take to draw before
+     * the icon falls back to cheaper rendering, see {@link #setDrawBudget(int)}
+     */
+    public static final int DEFAULT_DRAW_BUDGET = 1000;
+
+    public static final float DEFAULT_SPRING_STIFFNESS     = 200f;
+    public static final float DEFAULT_SPRING_DAMPING_RATIO = 1f;
+
+    private static final long SPRING_STEP        = 4;
+    private static final long SPRING_MAX_ELAPSED = 64;
+
+    // stateless, shared by every drawable
+    private static final Interpolator DEFAULT_INTERPOLATOR = new DecelerateInterpolator(3);
+
+    private final MaterialMenuGeometry geometry;
+
+    private final int width;
+    private final int height;
 
     private final Object lock = new Object();
 
     private final Paint iconPaint   = new Paint();
     private final Paint circlePaint = new Paint();
+    private final Paint rectPaint   = new Paint();
+
+    // created on the first snapped draw
+    private Matrix  snapMatrix;
+    private float[] snapMatrixValues;
+
+    private int alpha      = 255;
+    private int colorAlpha = 255;
+
+    private boolean pressedCircleEnabled;
+    private boolean circlePressed;
+
+    private long    drawBudget;
+    private long    averageDrawTime;
+    private boolean reducedQuality;
 
     private float   transformationValue   = 0f;
     private boolean transformationRunning = false;
+    private boolean scrubPending          = false;
 
     private IconState      currentIconState = IconState.BURGER;
     private AnimationState animationState   = AnimationState.BURGER_ARROW;
@@ -193,11 +225,47 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
     private IconState animatingIconState;
     private boolean   visible;
     private boolean   rtlEnabled;
-
-    private ObjectAnimator   transformation;
-    private AnimatorListener animatorListener;
-
-    private MaterialMenuState materialMenuState;
+    private boolean   autoMirrored;
+    private boolean   layoutRtl;
+
+    private ObjectAnimator         transformation;
+    private int                    transformDuration;
+    private Interpolator           interpolator = DEFAULT_INTERPOLATOR;
+    private AnimatorListener       animatorListener;
+    private TransformationListener transformationListener;
+
+    private KeyframeTable keyframes;
+    private float[]       keyframeSegments;
+    private int           keyframeState;
+    private int           animatingKeyframeState = -1;
+
+    private int     colorFrom;
+    private int     colorTo;
+    private float   colorStartValue;
+    private boolean colorRunning;
+
+    private ColorStateList                     tint;
+    private PorterDuff.Mode                    tintMode = DEFAULT_TINT_MODE;
+    private ColorFilter                        colorFilter;
+    private PorterDuffColorFilter              tintFilter;
+    private SparseArray<PorterDuffColorFilter> tintFilters;
+
+    private AnimationClock               clock;
+    private AnimationClock.FrameCallback clockFrame;
+    private long                         clockStartTime;
+    private float                        clockFrom;
+    private float                        clockTo;
+
+    private ValueAnimator springTicker;
+    private boolean       springRunning;
+    private float         springStiffness    = DEFAULT_SPRING_STIFFNESS;
+    private float         springDampingRatio = DEFAULT_SPRING_DAMPING_RATIO;
+    private float         springTarget;
+    private float         springVelocity;
+    private long          springFrameTime;
+
+    // state this drawable was cloned from or last handed out, shared while it still applies
+    private MaterialMenuState constantState;
 
     public MaterialMenuDrawable(Context context, int color, Stroke stroke) {
         this(context, color, stroke, DEFAULT_SCALE, DEFAULT_TRANSFORM_DURATION);
@@ -208,67 +276,93 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
     }
 
     public MaterialMenuDrawable(Context context, int color, Stroke stroke, int scale, int transformDuration) {
-        Resources resources = context.getResources();
-        // convert each separately due to various densities
-        this.dip1 = dpToPx(resources, 1) * scale;
-        this.dip2 = dpToPx(resources, 2) * scale;
-        this.dip3 = dpToPx(resources, 3) * scale;
-        this.dip4 = dpToPx(resources, 4) * scale;
-        this.dip8 = dpToPx(resources, 8) * scale;
-        this.diph = dip1 / 2;
-
-        this.stroke = stroke;
-        this.visible = DEFAULT_VISIBLE;
-        this.width = (int) (dpToPx(resources, BASE_DRAWABLE_WIDTH) * scale);
-        this.height = (int) (dpToPx(resources, BASE_DRAWABLE_HEIGHT) * scale);
-        this.iconWidth = dpToPx(resources, BASE_ICON_WIDTH) * scale;
-        this.circleRadius = dpToPx(resources, BASE_CIRCLE_RADIUS) * scale;
-        this.strokeWidth = dpToPx(resources, stroke.strokeWidth) * scale;
-
-        this.sidePadding = (width - iconWidth) / 2;
-        this.topPadding = (height - 5 * dip3) / 2;
-
-        initPaint(color);
-        initAnimations(transformDuration);
-
-        materialMenuState = new MaterialMenuState();
-    }
-
-    private MaterialMenuDrawable(
-        int color, Stroke stroke, long transformDuration, int width, int height,
-        float iconWidth, float circleRadius, float strokeWidth, float dip1
-    ) {
-        this.dip1 = dip1;
-        this.dip2 = dip1 * 2;
-        this.dip3 = dip1 * 3;
-        this.dip4 = dip1 * 4;
-        this.dip8 = dip1 * 8;
-        this.diph = dip1 / 2;
-        this.stroke = stroke;
-        this.width = width;
-        this.height = height;
-        this.iconWidth = iconWidth;
-        this.circleRadius = circleRadius;
-        this.strokeWidth = strokeWidth;
-        this.sidePadding = (width - iconWidth) / 2;
-        this.topPadding = (height - 5 * dip3) / 2;
-
-        initPaint(color);
-        initAnimations((int) transformDuration);
-
-        materialMenuState = new MaterialMenuState();
+        this(MaterialMenuGeometry.obtain(context.getResources(), stroke, scale), color, transformDuration);
+    }
+
+    MaterialMenuDrawable(MaterialMenuGeometry geometry, int color, int transformDuration) {
+        this(new MaterialMenuState(geometry, color, transformDuration));
+    }
+
+    private MaterialMenuDrawable(MaterialMenuState state) {
+        this.constantState = state;
+        this.geometry = state.geometry;
+        this.width = geometry.width;
+        this.height = geometry.height;
+        this.visible = state.visible;
+        this.rtlEnabled = state.rtlEnabled;
+        this.autoMirrored = state.autoMirrored;
+        this.pressedCircleEnabled = state.pressedCircleEnabled;
+        this.alpha = state.alpha;
+        this.drawBudget = state.drawBudget;
+
+        this.transformDuration = state.transformDuration;
+        this.interpolator = state.interpolator;
+        this.springStiffness = state.springStiffness;
+        this.springDampingRatio = state.springDampingRatio;
+
+        initPaint(state.color);
+        applyIconState(state.iconState);
+
+        this.tint = state.tint;
+        this.tintMode = state.tintMode;
+        this.colorFilter = state.colorFilter;
+        updateTintFilter(getState());
+        if (colorFilter != null) {
+            applyColorFilter();
+        }
+    }
+
+    /**
+     * Prepare everything drawables of the given strokes and scale need ahead of time, i.e.
+     * from a background thread while a splash screen shows. Dimensions are resolved for the
+     * current density and published to the shared cache, and classes and transformation code
+     * are loaded and run once, so the first drawable created on the UI thread only allocates
+     * itself. Calling it again for the same configuration is cheap.
+     *
+     * @param context any context, the application context is fine
+     * @param scale   scale drawables will be created with, i.e. {@link #DEFAULT_SCALE}
+     * @param strokes strokes drawables will be created with
+     */
+    public static void warmUp(Context context, int scale, Stroke... strokes) {
+        final Resources resources = context.getResources();
+        for (Stroke stroke : strokes) {
+            final MaterialMenuGeometry geometry = MaterialMenuGeometry.warmUp(resources, stroke, scale);
+
+            // never drawn or animated, only initializes paint and drawable classes
+            new MaterialMenuDrawable(geometry, DEFAULT_COLOR, DEFAULT_TRANSFORM_DURATION);
+        }
+    }
+
+    /**
+     * Evaluate every transformation of compiled icon definitions once, so that the pages of
+     * mapped tables are read before the first frame needs them. Safe to call from any thread.
+     *
+     * @param tables tables that will be passed to {@link #setIconDefinition(KeyframeTable)}
+     */
+    public static void warmUp(KeyframeTable... tables) {
+        for (KeyframeTable table : tables) {
+            final float[] segments = new float[table.getLineCount() * MaterialMenuGeometry.SEGMENT_STRIDE];
+            for (int from = 0; from < table.getStateCount(); from++) {
+                for (int to = 0; to < table.getStateCount(); to++) {
+                    table.evaluate(from, to, TRANSFORMATION_START, 1, segments);
+                    table.evaluate(from, to, TRANSFORMATION_MID, 1, segments);
+                }
+            }
+        }
     }
 
     private void initPaint(int color) {
         iconPaint.setAntiAlias(true);
         iconPaint.setStyle(Style.STROKE);
-        iconPaint.setStrokeWidth(strokeWidth);
-        iconPaint.setColor(color);
+        iconPaint.setStrokeWidth(geometry.strokeWidth);
 
         circlePaint.setAntiAlias(true);
         circlePaint.setStyle(Style.FILL);
-        circlePaint.setColor(color);
-        circlePaint.setAlpha(DEFAULT_CIRCLE_ALPHA);
+
+        rectPaint.setAntiAlias(false);
+        rectPaint.setStyle(Style.FILL);
+
+        applyColor(color);
 
         setBounds(0, 0, width, height);
     }
@@ -278,526 +372,279 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
      */
 
     @Override public void draw(Canvas canvas) {
-        if (!visible) return;
-
-        final float ratio = transformationValue <= 1 ? transformationValue : 2 - transformationValue;
-
-        if (rtlEnabled) {
-            canvas.save();
-            canvas.scale(-1, 1, 0, 0);
-            canvas.translate(-getIntrinsicWidth(), 0);
+        // only timed and spring transformations adapt, a settled or scrubbed icon may rest at
+        // any frame and is always drawn in full quality. Hardware canvases only record, their
+        // draw time is not the render time
+        if (drawBudget == 0 || !transformationRunning || canvas.isHardwareAccelerated()) {
+            if (reducedQuality) {
+                setReducedQuality(false);
+            }
+            averageDrawTime = 0;
+            drawIcon(canvas);
+            return;
         }
 
-        drawTopLine(canvas, ratio);
-        drawMiddleLine(canvas, ratio);
-        drawBottomLine(canvas, ratio);
-
-        if (rtlEnabled) {
-            canvas.restore();
-        }
+        final long start = System.nanoTime();
+        drawIcon(canvas);
+        updateRenderQuality(System.nanoTime() - start);
     }
 
-    private void drawMiddleLine(Canvas canvas, float ratio) {
-        canvas.restore();
-        canvas.save();
-
-        float transformRatio;
-
-        float rotation = 0;
-        float pivotX = width / 2;
-        float pivotY = width / 2;
-        float startX = sidePadding;
-        float startY = topPadding + dip3 / 2 * 5;
-        float stopX = width - sidePadding;
-        float stopY = topPadding + dip3 / 2 * 5;
-        int alpha = 255;
-
-        switch (animationState) {
-
-            case BURGER_ARROW:
-                // rotate by 180
-                if (isMorphingForward()) {
-                    rotation = ratio * ARROW_MID_LINE_ANGLE;
-                } else {
-                    rotation = ARROW_MID_LINE_ANGLE + (1 - ratio) * ARROW_MID_LINE_ANGLE;
-                }
-                // shorten one end
-                stopX -= ratio * resolveStrokeModifier(ratio) / 2;
-                break;
-
-            case BURGER_X:
-                // fade out
-                alpha = (int) ((1 - ratio) * 255);
-                break;
-
-            case BURGER_CHECK:
-                // rotate until required angle
-                rotation = ratio * CHECK_MIDDLE_ANGLE;
-                // lengthen both ends
-                startX += ratio * (dip4 + dip3 / 2);
-                stopX += ratio * dip1;
-                pivotX = width / 2 + dip3 + diph;
-                break;
-
-            case BURGER_HIDE:
-                transformRatio = transformRatio(ratio, .2f, .8f);
-                startX = (1 - transformRatio) * startX + transformRatio * startX / 1.5f;
-                stopX = (1 - transformRatio) * stopX + transformRatio * startX;
-                break;
+    private void drawIcon(Canvas canvas) {
+        if (scrubPending) {
+            scrubPending = false;
+            dispatchTransformation();
+        }
 
-            case ARROW_X:
-                // fade out and shorten one end
-                alpha = (int) ((1 - ratio) * 255);
-                startX += (1 - ratio) * dip2;
-                break;
+        if (!visible) return;
 
-            case ARROW_CHECK:
-                if (isMorphingForward()) {
-                    // rotate until required angle
-                    rotation = ratio * CHECK_MIDDLE_ANGLE;
-                } else {
-                    // rotate back to starting angle
-                    rotation = CHECK_MIDDLE_ANGLE - CHECK_MIDDLE_ANGLE * (1 - ratio);
-                }
-                // shorten one end and lengthen the other
-                startX += dip3 / 2 + dip4 - (1 - ratio) * dip2;
-                stopX += ratio * dip1;
-                pivotX = width / 2 + dip3 + diph;
-                break;
+        // drawable alpha and color alpha are folded into every line instead of the paint,
+        // so fading the icon never needs an offscreen layer
+        final int baseAlpha = alpha * colorAlpha / 255;
+        if (baseAlpha == 0) return;
 
-            case ARROW_HIDE:
-                // shorten left end
-                if (isMorphingForward()) {
-                    float slideRatio = transformRatio(ratio, .4f, .9f);
-                    transformRatio = transformRatio(ratio, .5f, .9f);
-                    startX = (1 - slideRatio) * (startX + resolveStrokeModifier(1) / 2) + slideRatio * (startX - sidePadding / 6);
-                    stopX = (1 - transformRatio) * stopX + transformRatio * startX;
-                } else {
-                    float slide = transformRatio(ratio, .1f, 1) * sidePadding;
-                    transformRatio = transformRatio(ratio, .6f, 1);
-                    stopX += slide / 2;
-                    startX = (1 - transformRatio) * (startX + slide / 4 + resolveStrokeModifier(1) / 2) + transformRatio * stopX;
-                }
-                break;
+        if (circlePressed) {
+            circlePaint.setAlpha(DEFAULT_CIRCLE_ALPHA * baseAlpha / 255);
+            canvas.drawCircle(width / 2f, height / 2f, geometry.circleRadius, circlePaint);
+        }
 
-            case X_CHECK:
-                // fade in
-                alpha = (int) (ratio * 255);
-                // rotation to check angle
-                rotation = ratio * CHECK_MIDDLE_ANGLE;
-                // lengthen both ends
-                startX += ratio * (dip4 + dip3 / 2);
-                stopX += ratio * dip1;
-                pivotX = width / 2 + dip3 + diph;
-                break;
+        final float[] segments;
+        if (keyframes != null) {
+            segments = keyframeSegments;
+            final int to = animatingKeyframeState >= 0 ? animatingKeyframeState : keyframeState;
+            keyframes.evaluate(keyframeState, to, transformationValue, geometry.dip1, segments);
+            if (isMirrored()) {
+                MaterialMenuGeometry.mirror(segments, width);
+            }
+        } else {
+            final float ratio = transformationValue <= 1 ? transformationValue : 2 - transformationValue;
 
-            case X_HIDE:
-                // hide
-                alpha = 0;
-                break;
+            // every line is fully collapsed once a transformation into HIDE completes
+            if (ratio == 1 && animationState.getSecondState() == IconState.HIDE) return;
 
-            case CHECK_HIDE:
-                // rotate to required angle
-                rotation = CHECK_MIDDLE_ANGLE;
-                pivotX = width / 2 + dip3 + diph;
-                // change length
-                if (isMorphingForward()) {
-                    transformRatio = transformRatio(ratio, .3f, .9f);
-                    startX += dip4 + dip3 / 2;
-                    stopX = (1 - transformRatio) * (stopX + dip1 + diph / 2) + transformRatio * startX;
-                } else {
-                    transformRatio = transformRatio(ratio, 0, 0.7f);
-                    stopX -= 1.5 * diph;
-                    startX = (1 - transformRatio) * (startX + dip4 + dip3 / 2) + transformRatio * stopX;
-                }
-                break;
+            segments = geometry.compute(animationState, transformationValue, isMirrored());
         }
 
-        iconPaint.setAlpha(alpha);
-        canvas.rotate(rotation, pivotX, pivotY);
-        canvas.drawLine(startX, startY, stopX, stopY, iconPaint);
-        iconPaint.setAlpha(255);
+        // lines of a settled icon are usually axis aligned, i.e. all of BURGER, and are cheaper
+        // and crisper as snapped rects. Moving lines stay smooth, snapping them would jitter.
+        // Icons with a diagonal line are not snapped at all, so their joints keep lining up
+        final boolean snap = !transformationRunning && (transformationValue == TRANSFORMATION_START
+            || transformationValue == TRANSFORMATION_MID || transformationValue == TRANSFORMATION_END)
+            && isAxisAligned(segments) && isTranslatedOnly(canvas);
+
+        for (int i = 0; i < segments.length; i += MaterialMenuGeometry.SEGMENT_STRIDE) {
+            final int segmentAlpha = (int) segments[i + 4];
+            if (segmentAlpha <= 0) continue;
+
+            final int lineAlpha = segmentAlpha * baseAlpha / 255;
+            if (snap) {
+                drawSnappedLine(canvas, segments, i, lineAlpha);
+            } else {
+                iconPaint.setAlpha(lineAlpha);
+                canvas.drawLine(segments[i], segments[i + 1], segments[i + 2], segments[i + 3], iconPaint);
+            }
+        }
     }
 
-    private void drawTopLine(Canvas canvas, float ratio) {
-        canvas.save();
-
-        float transformRatio;
-
-        float rotation = 0, pivotX = 0, pivotY = 0;
-        float rotation2 = 0;
-        // pivot at center of line
-        float pivotX2 = width / 2 + dip3 / 2;
-        float pivotY2 = topPadding + dip2;
-
-        float startX = sidePadding;
-        float startY = topPadding + dip2;
-        float stopX = width - sidePadding;
-        float stopY = topPadding + dip2;
-        int alpha = 255;
-
-        switch (animationState) {
-
-            case BURGER_ARROW:
-                if (isMorphingForward()) {
-                    // rotate until required angle
-                    rotation = ratio * ARROW_BOT_LINE_ANGLE;
-                } else {
-                    // rotate back to start doing a 360
-                    rotation = ARROW_BOT_LINE_ANGLE + (1 - ratio) * ARROW_TOP_LINE_ANGLE;
-                }
-                // rotate by middle
-                pivotX = width / 2;
-                pivotY = height / 2;
-                // shorten both ends
-                stopX -= resolveStrokeModifier(ratio);
-                startX += dip3 * ratio;
-                break;
-
-            case BURGER_X:
-                // rotate until required angles
-                rotation = X_TOP_LINE_ANGLE * ratio;
-                rotation2 = X_ROTATION_ANGLE * ratio;
-                // pivot at left corner of line
-                pivotX = sidePadding + dip4;
-                pivotY = topPadding + dip3;
-                // shorten one end
-                startX += dip3 * ratio;
-                break;
-
-            case BURGER_CHECK:
-                // fade out
-                alpha = (int) ((1 - ratio) * 255);
-                break;
-
-            case BURGER_HIDE:
-                if (isMorphingForward()) {
-                    transformRatio = transformRatio(ratio, 0, .6f);
-                } else {
-                    transformRatio = transformRatio(ratio, .4f, .9f);
-                }
-                startX = (1 - transformRatio) * startX + transformRatio * startX / 1.5f;
-                stopX = (1 - transformRatio) * stopX + transformRatio * startX;
-                break;
+    /**
+     * Return true if every visible line is horizontal or vertical
+     */
+    private static boolean isAxisAligned(float[] segments) {
+        for (int i = 0; i < segments.length; i += MaterialMenuGeometry.SEGMENT_STRIDE) {
+            if (segments[i + 4] <= 0) continue;
 
-            case ARROW_X:
-                // rotate from ARROW angle to X angle
-                rotation = ARROW_BOT_LINE_ANGLE + (X_TOP_LINE_ANGLE - ARROW_BOT_LINE_ANGLE) * ratio;
-                rotation2 = X_ROTATION_ANGLE * ratio;
-                // move pivot from ARROW pivot to X pivot
-                pivotX = width / 2 + (sidePadding + dip4 - width / 2) * ratio;
-                pivotY = height / 2 + (topPadding + dip3 - height / 2) * ratio;
-                // lengthen both ends
-                stopX -= resolveStrokeModifier(ratio);
-                startX += dip3;
-                break;
+            if (Math.abs(segments[i + 1] - segments[i + 3]) >= SNAP_TOLERANCE
+                && Math.abs(segments[i] - segments[i + 2]) >= SNAP_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-            case ARROW_CHECK:
-                // fade out
-                alpha = (int) ((1 - ratio) * 255);
-                // retain starting arrow configuration
-                rotation = ARROW_BOT_LINE_ANGLE;
-                pivotX = width / 2;
-                pivotY = height / 2;
-                // shorted both ends
-                stopX -= resolveStrokeModifier(1);
-                startX += dip3;
-                break;
+    /**
+     * Return true if the canvas maps drawable pixels one to one, whole pixels are only whole on
+     * screen then. Hardware canvases do not report transformations of their view, those are
+     * applied when the display list is rendered.
+     */
+    @SuppressWarnings("deprecation")
+    private boolean isTranslatedOnly(Canvas canvas) {
+        if (snapMatrix == null) {
+            snapMatrix = new Matrix();
+            snapMatrixValues = new float[9];
+        }
 
-            case ARROW_HIDE:
-                // rotate to required angle
-                rotation = ARROW_BOT_LINE_ANGLE;
-                // rotate by middle
-                pivotX = width / 2;
-                pivotY = height / 2;
-                // slide
-                float slide = isMorphingForward() ? 0 : transformRatio(ratio, .1f, 1) * sidePadding / 8;
-                startY += slide;
-                stopY += slide;
-                // shorten left ends
-                stopX -= resolveStrokeModifier(1) + slide;
-                // shorten right end
-                transformRatio = transformRatio(ratio,
-                        isMorphingForward() ? .0f : 0,
-                        isMorphingForward() ? .5f : .4f);
-                startX = (1 - transformRatio) * (startX - slide + dip3) + transformRatio * (stopX + dip2);
-                if (startX > stopX) {
-                    startX = stopX;
-                }
-                break;
+        canvas.getMatrix(snapMatrix);
+        snapMatrix.getValues(snapMatrixValues);
+        return snapMatrixValues[Matrix.MSCALE_X] == 1 && snapMatrixValues[Matrix.MSCALE_Y] == 1
+            && snapMatrixValues[Matrix.MSKEW_X] == 0 && snapMatrixValues[Matrix.MSKEW_Y] == 0
+            && snapMatrixValues[Matrix.MPERSP_0] == 0 && snapMatrixValues[Matrix.MPERSP_1] == 0
+            && snapMatrixValues[Matrix.MPERSP_2] == 1;
+    }
 
-            case X_CHECK:
-                // retain X configuration
-                rotation = X_TOP_LINE_ANGLE;
-                rotation2 = X_ROTATION_ANGLE;
-                pivotX = sidePadding + dip4;
-                pivotY = topPadding + dip3;
-                stopX += dip3 - dip3 * (1 - ratio);
-                startX += dip3;
-                // fade out
-                alpha = (int) ((1 - ratio) * 255);
-                break;
+    /**
+     * Draw a horizontal or vertical line as a filled rect aligned to whole pixels. Lines are
+     * drawn with butt caps, so the rect covers exactly what the stroke would.
+     */
+    private void drawSnappedLine(Canvas canvas, float[] segments, int offset, int alpha) {
+        final float startX = segments[offset];
+        final float startY = segments[offset + 1];
+        final float stopX = segments[offset + 2];
+        final float stopY = segments[offset + 3];
+        final int thickness = Math.max(1, Math.round(geometry.strokeWidth));
+
+        final int left, top, right, bottom;
+        if (Math.abs(startY - stopY) < SNAP_TOLERANCE) {
+            left = Math.round(Math.min(startX, stopX));
+            right = Math.round(Math.max(startX, stopX));
+            top = Math.round((startY + stopY - geometry.strokeWidth) / 2);
+            bottom = top + thickness;
+        } else {
+            left = Math.round((startX + stopX - geometry.strokeWidth) / 2);
+            right = left + thickness;
+            top = Math.round(Math.min(startY, stopY));
+            bottom = Math.round(Math.max(startY, stopY));
+        }
 
-            case X_HIDE:
-                // rotate to required angles
-                rotation = X_TOP_LINE_ANGLE;
-                rotation2 = X_ROTATION_ANGLE;
-                // pivot at left corner of line
-                pivotX = sidePadding + dip4;
-                pivotY = topPadding + dip3;
-                // shorten one end
-                if (isMorphingForward()) {
-                    transformRatio = transformRatio(ratio, .4f, .92f);
-                } else {
-                    transformRatio = transformRatio(ratio, 0, .5f);
-                }
-                if (isMorphingForward()) {
-                    startX += dip3;
-                    stopX = (1 - transformRatio) * stopX + transformRatio * startX;
-                } else {
-                    startX = (1 - transformRatio) * (startX + dip3) + transformRatio * stopX;
-                }
-                break;
+        rectPaint.setAlpha(alpha);
+        canvas.drawRect(left, top, right, bottom, rectPaint);
+    }
 
-            case CHECK_HIDE:
-                // hide
-                alpha = 0;
-                break;
+    private void updateRenderQuality(long drawTime) {
+        // average a few frames so that a single slow one, i.e. during a garbage collection,
+        // does not degrade the rest of the transformation
+        averageDrawTime = averageDrawTime == 0 ? drawTime : averageDrawTime + (drawTime - averageDrawTime) / 4;
+        if (!reducedQuality && averageDrawTime > drawBudget) {
+            setReducedQuality(true);
         }
-
-        iconPaint.setAlpha(alpha);
-        canvas.rotate(rotation, pivotX, pivotY);
-        canvas.rotate(rotation2, pivotX2, pivotY2);
-        canvas.drawLine(startX, startY, stopX, stopY, iconPaint);
-        iconPaint.setAlpha(255);
     }
 
-    private void drawBottomLine(Canvas canvas, float ratio) {
-        canvas.restore();
-        canvas.save();
+    private void setReducedQuality(boolean reducedQuality) {
+        this.reducedQuality = reducedQuality;
+        iconPaint.setAntiAlias(!reducedQuality);
+        circlePaint.setAntiAlias(!reducedQuality);
+    }
 
-        float transformRatio;
 
-        float rotation = 0, pivotX = 0, pivotY = 0;
-        float rotation2 = 0;
-        // pivot at center of line
-        float pivotX2 = width / 2 + dip3 / 2;
-        float pivotY2 = height - topPadding - dip2;
+    @Override public void setAlpha(int alpha) {
+        if (this.alpha == alpha) return;
 
-        float startX = sidePadding;
-        float startY = height - topPadding - dip2;
-        float stopX = width - sidePadding;
-        float stopY = height - topPadding - dip2;
-        int alpha = 255;
+        this.alpha = alpha;
+        invalidateSelf();
+    }
 
-        switch (animationState) {
+    @Override public int getAlpha() {
+        return alpha;
+    }
 
-            case BURGER_ARROW:
-                if (isMorphingForward()) {
-                    // rotate to required angle
-                    rotation = ARROW_TOP_LINE_ANGLE * ratio;
-                } else {
-                    // rotate back to start doing a 360
-                    rotation = ARROW_TOP_LINE_ANGLE + (1 - ratio) * ARROW_BOT_LINE_ANGLE;
-                }
-                // pivot center of canvas
-                pivotX = width / 2;
-                pivotY = height / 2;
-                // shorten both ends
-                stopX = width - sidePadding - resolveStrokeModifier(ratio);
-                startX = sidePadding + dip3 * ratio;
-                break;
+    @Override public void setColorFilter(ColorFilter cf) {
+        colorFilter = cf;
+        applyColorFilter();
+    }
 
-            case BURGER_X:
-                if (isMorphingForward()) {
-                    // rotate around
-                    rotation2 = -X_ROTATION_ANGLE * ratio;
-                } else {
-                    // rotate directly
-                    rotation2 = X_ROTATION_ANGLE * ratio;
-                }
-                // rotate to required angle
-                rotation = X_BOT_LINE_ANGLE * ratio;
-                // pivot left corner of line
-                pivotX = sidePadding + dip4;
-                pivotY = height - topPadding - dip3;
-                // shorten one end
-                startX += dip3 * ratio;
-                break;
+    @Override public void setTintList(ColorStateList tint) {
+        this.tint = tint;
+        updateTintFilter(getState());
+    }
 
-            case BURGER_CHECK:
-                // rotate from ARROW angle to CHECK angle
-                rotation = ratio * (CHECK_BOTTOM_ANGLE + ARROW_TOP_LINE_ANGLE);
-                // move pivot from BURGER pivot to CHECK pivot
-                pivotX = width / 2 + dip3 * ratio;
-                pivotY = height / 2 - dip3 * ratio;
-                // length stays same as BURGER
-                startX += dip8 * ratio;
-                stopX -= resolveStrokeModifier(ratio);
-                break;
+    @Override public void setTintMode(PorterDuff.Mode tintMode) {
+        if (this.tintMode == tintMode) return;
 
-            case BURGER_HIDE:
-                if (isMorphingForward()) {
-                    transformRatio = transformRatio(ratio, .4f, .9f);
-                } else {
-                    transformRatio = transformRatio(ratio, 0, .6f);
-                }
-                startX = (1 - transformRatio) * startX + transformRatio * startX / 1.5f;
-                stopX = (1 - transformRatio) * stopX + transformRatio * startX;
-                break;
+        this.tintMode = tintMode;
+        this.tintFilters = null;
+        updateTintFilter(getState());
+    }
 
-            case ARROW_X:
-                // rotate from ARROW angle to X angle
-                rotation = ARROW_TOP_LINE_ANGLE + (360 + X_BOT_LINE_ANGLE - ARROW_TOP_LINE_ANGLE) * ratio;
-                rotation2 = -X_ROTATION_ANGLE * ratio;
-                // move pivot from ARROW pivot to X pivot
-                pivotX = width / 2 + (sidePadding + dip4 - width / 2) * ratio;
-                pivotY = height / 2 + (height / 2 - topPadding - dip3) * ratio;
-                // lengthen both ends
-                stopX -= resolveStrokeModifier(ratio);
-                startX += dip3;
-                break;
+    @Override public boolean isStateful() {
+        return pressedCircleEnabled || (tint != null && tint.isStateful());
+    }
 
-            case ARROW_CHECK:
-                // rotate from ARROW angle to CHECK angle
-                rotation = ARROW_TOP_LINE_ANGLE + ratio * CHECK_BOTTOM_ANGLE;
-                // move pivot from ARROW pivot to CHECK pivot
-                pivotX = width / 2 + dip3 * ratio;
-                pivotY = height / 2 - dip3 * ratio;
-                // length stays same as ARROW
-                stopX -= resolveStrokeModifier(1);
-                startX += dip3 + (dip4 + dip1) * ratio;
-                break;
+    @Override protected boolean onStateChange(int[] state) {
+        final boolean tintChanged = updateTintFilter(state);
+        return updatePressedCircle(state) || tintChanged;
+    }
 
-            case ARROW_HIDE:
-                // rotate to required angle
-                rotation = ARROW_TOP_LINE_ANGLE;
-                // pivot center of canvas
-                pivotX = width / 2;
-                pivotY = height / 2;
-                // slide
-                float slide = isMorphingForward() ? 0 : transformRatio(ratio, .1f, 1) * sidePadding / 8;
-                startY -= slide;
-                stopY -= slide;
-                // shorten left ends
-                stopX = width - sidePadding - resolveStrokeModifier(1) - slide;
-                // shorten right ends
-                transformRatio = transformRatio(ratio,
-                        isMorphingForward() ? .3f : .1f,
-                        isMorphingForward() ? .8f : .6f);
-                startX = (1 - transformRatio) * (sidePadding - slide + dip3) + transformRatio * (stopX + dip2);
-                if (startX > stopX) {
-                    startX = stopX;
-                }
-                break;
+    /**
+     * Draw a circle in the icon color below the lines while the drawable is pressed or
+     * focused. Hosts that provide their own touch feedback, i.e. a toolbar navigation button,
+     * should leave it disabled.
+     *
+     * @param enabled true to draw the pressed circle
+     * @see MaterialMenuView#setPressedCircleEnabled(boolean)
+     */
+    public void setPressedCircleEnabled(boolean enabled) {
+        if (pressedCircleEnabled == enabled) return;
 
-            case X_CHECK:
-                // rotate from X to CHECK angles
-                rotation2 = -X_ROTATION_ANGLE * (1 - ratio);
-                rotation = X_BOT_LINE_ANGLE + (CHECK_BOTTOM_ANGLE + ARROW_TOP_LINE_ANGLE - X_BOT_LINE_ANGLE) * ratio;
-                // move pivot from X to CHECK
-                pivotX = sidePadding + dip4 + (width / 2 + dip3 - sidePadding - dip4) * ratio;
-                pivotY = height - topPadding - dip3 + (topPadding + height / 2 - height) * ratio;
-                // shorten both ends
-                startX += dip8 - (dip4 + dip1) * (1 - ratio);
-                stopX -= resolveStrokeModifier(1 - ratio);
-                break;
+        pressedCircleEnabled = enabled;
+        updatePressedCircle(getState());
+    }
 
-            case X_HIDE:
-                // rotate to required angles
-                rotation = X_BOT_LINE_ANGLE;
-                rotation2 = -X_ROTATION_ANGLE;
-                // pivot left corner of line
-                pivotX = sidePadding + dip4;
-                pivotY = height - topPadding - dip3;
-                // shorten one end
-                if (isMorphingForward()) {
-                    transformRatio = transformRatio(ratio, 0, .6f);
-                } else {
-                    transformRatio = transformRatio(ratio, .3f, 1);
-                }
-                if (isMorphingForward()) {
-                    startX += dip3;
-                    stopX = (1 - transformRatio) * stopX + transformRatio * startX;
-                } else {
-                    startX = (1 - transformRatio) * (startX + dip3) + transformRatio * stopX;
-                }
-                break;
+    public boolean isPressedCircleEnabled() {
+        return pressedCircleEnabled;
+    }
 
-            case CHECK_HIDE:
-                // rotate to required angle
-                rotation = CHECK_BOTTOM_ANGLE + ARROW_TOP_LINE_ANGLE;
-                // move pivot from BURGER pivot to CHECK pivot
-                pivotX = width / 2 + dip3;
-                pivotY = height / 2 - dip3;
-                // change length
-                if (isMorphingForward()) {
-                    transformRatio = transformRatio(ratio, 0, .3f);
-                    stopX -= resolveStrokeModifier(1) + dip2;
-                    startX = (1 - transformRatio) * (startX + dip8) + transformRatio * stopX;
-                } else {
-                    transformRatio = transformRatio(ratio, .7f, 1);
-                    startX += dip8;
-                    stopX = (1 - transformRatio) * (stopX - resolveStrokeModifier(1)) + transformRatio * startX;
+    private boolean updatePressedCircle(int[] state) {
+        boolean pressed = false;
+        if (pressedCircleEnabled) {
+            for (int value : state) {
+                if (value == android.R.attr.state_pressed || value == android.R.attr.state_focused) {
+                    pressed = true;
+                    break;
                 }
-                break;
+            }
         }
 
-        iconPaint.setAlpha(alpha);
-        canvas.rotate(rotation, pivotX, pivotY);
-        canvas.rotate(rotation2, pivotX2, pivotY2);
-        canvas.drawLine(startX, startY, stopX, stopY, iconPaint);
-        iconPaint.setAlpha(255);
+        if (pressed == circlePressed) return false;
+
+        circlePressed = pressed;
+        invalidateSelf();
+        return true;
     }
 
-    private boolean isMorphingForward() {
-        return transformationValue <= TRANSFORMATION_MID;
+    /**
+     * Current icon color, changing along with a running color transformation
+     */
+    int getColor() {
+        return circlePaint.getColor();
     }
 
-    private float resolveStrokeModifier(float ratio) {
-        switch (stroke) {
-            case BOLD:
-                if (animationState == AnimationState.ARROW_X || animationState == AnimationState.X_CHECK) {
-                    return dip3 - (dip3 * ratio);
-                }
-                return ratio * dip3;
-            case REGULAR:
-                if (animationState == AnimationState.ARROW_X || animationState == AnimationState.X_CHECK) {
-                    return dip3 + diph - (dip3 + diph) * ratio;
-                }
-                return ratio * (dip3 + diph);
-            case THIN:
-                if (animationState == AnimationState.ARROW_X || animationState == AnimationState.X_CHECK) {
-                    return dip4 - ((dip3 + dip1) * ratio);
-                }
-                return ratio * dip4;
-        }
-        return 0;
+    /**
+     * Color of the pressed circle for the given icon color
+     */
+    static int getCircleColor(int color) {
+        return (color & 0x00FFFFFF) | ((Color.alpha(color) * DEFAULT_CIRCLE_ALPHA / 255) << 24);
     }
 
     /**
-     * Translate ratio to specific start and end points
-     * @param ratio         current ratio
-     * @param startPoint    start point [0, 1)
-     * @param endPoint      end point (0, 1]
-     * @return Translated current ratio value depends on start and end points
+     * Resolve the tint for the given drawable state. Filters are cached per tint color, so
+     * state changes such as presses do not allocate once every state has been seen.
      */
-    private float transformRatio(float ratio, float startPoint, float endPoint) {
-        if (ratio <= startPoint) {
-            return 0;
-        } else if (ratio >= endPoint) {
-            return 1;
-        } else {
-            return (ratio - startPoint) / (endPoint - startPoint);
+    private boolean updateTintFilter(int[] state) {
+        PorterDuffColorFilter filter = null;
+        if (tint != null && tintMode != null) {
+            final int color = tint.getColorForState(state, tint.getDefaultColor());
+            if (tintFilters == null) {
+                tintFilters = new SparseArray<>();
+            }
+            filter = tintFilters.get(color);
+            if (filter == null) {
+                filter = new PorterDuffColorFilter(color, tintMode);
+                tintFilters.put(color, filter);
+            }
         }
-    }
 
-    @Override public void setAlpha(int alpha) {
-        iconPaint.setAlpha(alpha);
+        if (filter == tintFilter) return false;
+
+        tintFilter = filter;
+        applyColorFilter();
+        return true;
     }
 
-    @Override public void setColorFilter(ColorFilter cf) {
-        iconPaint.setColorFilter(cf);
+    private void applyColorFilter() {
+        // an explicit color filter overrides the tint
+        final ColorFilter filter = colorFilter != null ? colorFilter : tintFilter;
+        iconPaint.setColorFilter(filter);
+        circlePaint.setColorFilter(filter);
+        rectPaint.setColorFilter(filter);
+        invalidateSelf();
     }
 
     @Override public int getOpacity() {
@@ -809,77 +656,366 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
      */
 
     public void setColor(int color) {
+        colorRunning = false;
+        applyColor(color);
+        invalidateSelf();
+    }
+
+    private void applyColor(int color) {
+        // Color.alpha() inlined, so the alpha also resolves in tests without the framework
+        colorAlpha = color >>> 24;
         iconPaint.setColor(color);
         circlePaint.setColor(color);
-        invalidateSelf();
+        rectPaint.setColor(color);
     }
 
     public void setTransformationDuration(int duration) {
-        transformation.setDuration(duration);
+        transformDuration = duration;
+        if (transformation != null) {
+            transformation.setDuration(duration);
+        }
     }
 
     public void setInterpolator(Interpolator interpolator) {
-        transformation.setInterpolator(interpolator);
+        this.interpolator = interpolator;
+        if (transformation != null) {
+            transformation.setInterpolator(interpolator);
+        }
+    }
+
+    /**
+     * Set how long a frame of a running transformation may take to draw. Once frames take longer
+     * on average, i.e. on a slow device, lines are drawn without anti-aliasing until the
+     * transformation ends. Settled icons are always anti-aliased.
+     * <p>
+     * The budget only applies to software canvases. Hardware accelerated canvases merely record
+     * a display list, which says nothing about the time the frame takes to render, so they are
+     * always drawn in full quality.
+     *
+     * @param micros budget in microseconds, defaults to {@link #DEFAULT_DRAW_BUDGET},
+     *               0 to always draw in full quality
+     */
+    public void setDrawBudget(int micros) {
+        drawBudget = micros * 1000L;
     }
 
     public void setAnimationListener(AnimatorListener listener) {
-        if (animatorListener != null) {
-            transformation.removeListener(animatorListener);
-        }
+        if (transformation != null) {
+            if (animatorListener != null) {
+                transformation.removeListener(animatorListener);
+            }
 
-        if (listener != null) {
-            transformation.addListener(listener);
+            if (listener != null) {
+                transformation.addListener(listener);
+            }
         }
 
         animatorListener = listener;
     }
 
+    public void setTransformationListener(TransformationListener listener) {
+        transformationListener = listener;
+    }
+
     public void setIconState(IconState iconState) {
         synchronized (lock) {
             if (transformationRunning) {
-                transformation.cancel();
+                if (springRunning) {
+                    cancelSpring();
+                } else {
+                    cancelAnimator();
+                }
                 transformationRunning = false;
             }
 
+            if (colorRunning) {
+                colorRunning = false;
+                applyColor(colorTo);
+            }
+
+            animatingIconState = null;
             if (currentIconState == iconState) return;
 
-            switch (iconState) {
-                case BURGER:
-                    animationState = AnimationState.BURGER_ARROW;
-                    transformationValue = TRANSFORMATION_START;
-                    break;
-                case ARROW:
-                    animationState = AnimationState.BURGER_ARROW;
-                    transformationValue = TRANSFORMATION_MID;
-                    break;
-                case X:
-                    animationState = AnimationState.BURGER_X;
-                    transformationValue = TRANSFORMATION_MID;
-                    break;
-                case CHECK:
-                    animationState = AnimationState.BURGER_CHECK;
-                    transformationValue = TRANSFORMATION_MID;
-                    break;
-                case HIDE:
-                    animationState = AnimationState.BURGER_HIDE;
-                    transformationValue = TRANSFORMATION_MID;
-                    break;
-            }
-            currentIconState = iconState;
+            applyIconState(iconState);
             invalidateSelf();
         }
     }
 
+    private void applyIconState(IconState iconState) {
+        switch (iconState) {
+            case BURGER:
+                animationState = AnimationState.BURGER_ARROW;
+                transformationValue = TRANSFORMATION_START;
+                break;
+            case ARROW:
+                animationState = AnimationState.BURGER_ARROW;
+                transformationValue = TRANSFORMATION_MID;
+                break;
+            case X:
+                animationState = AnimationState.BURGER_X;
+                transformationValue = TRANSFORMATION_MID;
+                break;
+            case CHECK:
+                animationState = AnimationState.BURGER_CHECK;
+                transformationValue = TRANSFORMATION_MID;
+                break;
+            case HIDE:
+                animationState = AnimationState.BURGER_HIDE;
+                transformationValue = TRANSFORMATION_MID;
+                break;
+        }
+        currentIconState = iconState;
+    }
+
     public void animateIconState(IconState state) {
         synchronized (lock) {
+            if (keyframes != null) return;
+
             if (transformationRunning) {
-                transformation.end();
+                endTransformation();
             }
             animatingIconState = state;
             start();
         }
     }
 
+    /**
+     * Animate icon to given state and color at once, i.e. BURGER in white to CHECK in green.
+     * The color is interpolated in the same frame as the shape, so no second animator or
+     * invalidation is needed.
+     *
+     * @param state new icon state
+     * @param color icon color once the transformation ends
+     */
+    public void animateIconState(IconState state, int color) {
+        synchronized (lock) {
+            if (transformationRunning) {
+                endTransformation();
+            }
+
+            if (keyframes != null || state == currentIconState) {
+                setColor(color);
+                return;
+            }
+
+            colorFrom = iconPaint.getColor();
+            colorTo = color;
+            colorRunning = true;
+            animatingIconState = state;
+            start();
+        }
+    }
+
+    /**
+     * Return the drawable to a pristine state so it can be reused, i.e. when recycling list rows.
+     * Running transformations are cancelled without notifying listeners, all listeners, the
+     * icon definition and a custom animation clock are cleared and every other setting returns
+     * to its default. Only color and transformation duration are kept, they are set explicitly
+     * by whoever reuses the drawable.
+     *
+     * @param state icon state to show
+     * @see MaterialMenuDrawablePool
+     */
+    public void reset(IconState state) {
+        synchronized (lock) {
+            setAnimationListener(null);
+            transformationListener = null;
+
+            if (transformationRunning) {
+                if (springRunning) {
+                    cancelSpring();
+                } else {
+                    cancelAnimator();
+                }
+                transformationRunning = false;
+            }
+
+            keyframes = null;
+            keyframeSegments = null;
+            keyframeState = 0;
+            animatingKeyframeState = -1;
+            animatingIconState = null;
+            scrubPending = false;
+            visible = DEFAULT_VISIBLE;
+            alpha = 255;
+            rtlEnabled = false;
+            autoMirrored = false;
+            layoutRtl = false;
+            pressedCircleEnabled = false;
+            circlePressed = false;
+            clock = null;
+
+            setInterpolator(DEFAULT_INTERPOLATOR);
+            springStiffness = DEFAULT_SPRING_STIFFNESS;
+            springDampingRatio = DEFAULT_SPRING_DAMPING_RATIO;
+
+            drawBudget = DEFAULT_DRAW_BUDGET * 1000L;
+            averageDrawTime = 0;
+            setReducedQuality(false);
+
+            tint = null;
+            tintMode = DEFAULT_TINT_MODE;
+            colorFilter = null;
+            tintFilter = null;
+            applyColorFilter();
+
+            // force the state to be reapplied even if it matches the current one
+            currentIconState = null;
+            setIconState(state);
+        }
+    }
+
+    /**
+     * Animate icon to given state with a spring instead of the timed transformation. The spring
+     * continues from the current transformation offset, i.e. where a gesture left it, and
+     * settles as soon as the remaining motion is no longer visible.
+     * {@link #setAnimationListener(AnimatorListener)} is not notified for spring transformations.
+     *
+     * @param state    new icon state
+     * @param velocity initial velocity in offsets per second, positive towards the second icon
+     *                 of the transformation, whichever icon {@code state} is. The same convention
+     *                 as {@link MaterialMenuOffsetBinding#getVelocity()}, so a fling can be handed
+     *                 over as is
+     */
+    public void springIconState(IconState state, float velocity) {
+        synchronized (lock) {
+            if (keyframes != null) return;
+
+            if (transformationRunning) {
+                endTransformation();
+            }
+
+            final float target;
+            if (state == animationState.getSecondState()) {
+                target = TRANSFORMATION_MID;
+            } else if (state == animationState.getFirstState()) {
+                target = transformationValue < TRANSFORMATION_MID ? TRANSFORMATION_START : TRANSFORMATION_END;
+            } else {
+                if (state == currentIconState) return;
+
+                animatingIconState = state;
+                final boolean direction = resolveTransformation();
+                transformationValue = direction ? TRANSFORMATION_START : TRANSFORMATION_MID;
+                target = direction ? TRANSFORMATION_MID : TRANSFORMATION_END;
+            }
+
+            animatingIconState = state;
+            if (transformationValue == target || !canAnimate()) {
+                setIconState(state);
+                return;
+            }
+
+            // offsets grow towards the second icon below the middle and shrink above it
+            final float towardsTarget = target > transformationValue ? velocity : -velocity;
+            springTarget = target;
+            springVelocity = state == animationState.getSecondState() ? towardsTarget : -towardsTarget;
+            startSpring();
+        }
+    }
+
+    /**
+     * Draw custom states from a compiled {@link IconDefinition} instead of the built-in
+     * {@link IconState}s. Built-in states and offsets are ignored while a definition is set and
+     * built-in transformations are not started.
+     *
+     * @param keyframes compiled definition or null to draw built-in states again
+     */
+    public void setIconDefinition(KeyframeTable keyframes) {
+        synchronized (lock) {
+            if (transformationRunning) {
+                endTransformation();
+            }
+
+            this.keyframes = keyframes;
+            this.keyframeSegments = keyframes != null
+                ? new float[keyframes.getLineCount() * MaterialMenuGeometry.SEGMENT_STRIDE]
+                : null;
+            this.keyframeState = 0;
+            this.animatingKeyframeState = -1;
+            this.transformationValue = TRANSFORMATION_START;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Change custom state without animation
+     *
+     * @param state index of a state of the current {@link IconDefinition}
+     */
+    public void setKeyframeState(int state) {
+        synchronized (lock) {
+            checkKeyframeState(state);
+
+            if (transformationRunning) {
+                if (springRunning) {
+                    cancelSpring();
+                } else {
+                    cancelAnimator();
+                }
+                transformationRunning = false;
+            }
+
+            keyframeState = state;
+            animatingKeyframeState = -1;
+            transformationValue = TRANSFORMATION_START;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Animate to a custom state
+     *
+     * @param state index of a state of the current {@link IconDefinition}
+     */
+    public void animateKeyframeState(int state) {
+        synchronized (lock) {
+            checkKeyframeState(state);
+
+            if (transformationRunning) {
+                endTransformation();
+            }
+
+            if (state == keyframeState) return;
+
+            if (!canAnimate()) {
+                setKeyframeState(state);
+                return;
+            }
+
+            animatingKeyframeState = state;
+            transformationRunning = true;
+            startAnimator(TRANSFORMATION_START, TRANSFORMATION_MID);
+        }
+    }
+
+    public int getKeyframeState() {
+        return keyframeState;
+    }
+
+    private void checkKeyframeState(int state) {
+        if (keyframes == null) {
+            throw new IllegalStateException("No icon definition set");
+        }
+        if (state < 0 || state >= keyframes.getStateCount()) {
+            throw new IllegalArgumentException(
+                String.format("State must be between 0 and %s", keyframes.getStateCount() - 1)
+            );
+        }
+    }
+
+    /**
+     * Set spring parameters used by {@link #springIconState(IconState, float)}
+     *
+     * @param stiffness    spring stiffness, defaults to {@link #DEFAULT_SPRING_STIFFNESS}
+     * @param dampingRatio damping ratio, 1 for a critically damped spring. The spring settles as
+     *                     soon as it reaches its target, so ratios below 1 arrive sooner but
+     *                     never overshoot or bounce
+     */
+    public void setSpring(float stiffness, float dampingRatio) {
+        springStiffness = stiffness;
+        springDampingRatio = dampingRatio;
+    }
+
     public IconState setTransformationOffset(AnimationState animationState, float offset) {
         if (offset < TRANSFORMATION_START || offset > TRANSFORMATION_END) {
             throw new IllegalArgumentException(
@@ -887,16 +1023,55 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
             );
         }
 
+        if (updateTransformationOffset(animationState, offset)) {
+            invalidateSelf();
+            dispatchTransformation();
+        }
+
+        return currentIconState;
+    }
+
+    /**
+     * Cheap variant of {@link #setTransformationOffset(AnimationState, float)} for offsets coming
+     * from gestures that may report several times per frame. The offset is clamped instead of
+     * validated, unchanged and non-finite offsets are ignored and invalidation and listener
+     * callbacks happen at most once per drawn frame.
+     *
+     * @param animationState state to set value in
+     * @param offset         value clamped between 0 and 2
+     * @return icon state resolved from the offset
+     */
+    public IconState scrubTransformationOffset(AnimationState animationState, float offset) {
+        if (Float.isNaN(offset) || Float.isInfinite(offset)) return currentIconState;
+
+        if (offset < TRANSFORMATION_START) {
+            offset = TRANSFORMATION_START;
+        } else if (offset > TRANSFORMATION_END) {
+            offset = TRANSFORMATION_END;
+        }
+
+        if (updateTransformationOffset(animationState, offset) && !scrubPending) {
+            scrubPending = true;
+            invalidateSelf();
+        }
+
+        return currentIconState;
+    }
+
+    private boolean updateTransformationOffset(AnimationState animationState, float offset) {
+        if (!transformationRunning && this.animationState == animationState && transformationValue == offset) {
+            return false;
+        }
+
         this.animationState = animationState;
 
         final boolean isFirstIcon = offset < TRANSFORMATION_MID || offset == TRANSFORMATION_END;
 
         currentIconState = isFirstIcon ? animationState.getFirstState() : animationState.getSecondState();
         animatingIconState = isFirstIcon ? animationState.getSecondState() : animationState.getFirstState();
+        transformationValue = offset;
 
-        setTransformationValue(offset);
-
-        return currentIconState;
+        return true;
     }
 
     public void setVisible(boolean visible) {
@@ -904,11 +1079,65 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
         invalidateSelf();
     }
 
+    /**
+     * Framework visibility, e.g. when the hosting view is hidden or detached. Running
+     * transformations are paused while invisible so that no frames are produced for an
+     * icon nobody can see. Platforms without {@link Animator#pause()} fast-forward
+     * the transformation to its end state instead. Transformations started while invisible
+     * jump to their end state right away.
+     */
+    @Override public boolean setVisible(boolean visible, boolean restart) {
+        final boolean changed = super.setVisible(visible, restart);
+        if (visible) {
+            resumeTransformation();
+        } else {
+            pauseTransformation();
+        }
+        return changed;
+    }
+
     public void setRTLEnabled(boolean rtlEnabled) {
         this.rtlEnabled = rtlEnabled;
         invalidateSelf();
     }
 
+    /**
+     * Mirror the icon automatically when the layout direction is right-to-left, as reported by
+     * the hosting view. Independent of {@link #setRTLEnabled(boolean)}, which always mirrors.
+     */
+    @Override public void setAutoMirrored(boolean autoMirrored) {
+        if (this.autoMirrored == autoMirrored) return;
+
+        this.autoMirrored = autoMirrored;
+        invalidateSelf();
+    }
+
+    @Override public boolean isAutoMirrored() {
+        return autoMirrored;
+    }
+
+    @Override public boolean onLayoutDirectionChanged(int layoutDirection) {
+        return setLayoutRtl(layoutDirection == LayoutDirection.RTL);
+    }
+
+    /**
+     * Layout direction for platforms that do not propagate it to drawables yet
+     */
+    boolean setLayoutRtl(boolean layoutRtl) {
+        if (this.layoutRtl == layoutRtl) return false;
+
+        this.layoutRtl = layoutRtl;
+        if (autoMirrored) {
+            invalidateSelf();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isMirrored() {
+        return rtlEnabled || (autoMirrored && layoutRtl);
+    }
+
     public IconState getIconState() {
         return currentIconState;
     }
@@ -920,7 +1149,7 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
     /*
      * Animations
      */
-    private Property<MaterialMenuDrawable, Float> transformationProperty
+    private static final Property<MaterialMenuDrawable, Float> TRANSFORMATION_PROPERTY
         = new Property<MaterialMenuDrawable, Float>(Float.class, "transformation") {
         @Override
         public Float get(MaterialMenuDrawable object) {
@@ -938,119 +1167,340 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
     }
 
     public void setTransformationValue(Float value) {
+        applyTransformationValue(value);
+    }
+
+    private void applyTransformationValue(float value) {
         this.transformationValue = value;
+        if (colorRunning) {
+            final float fraction = Math.max(0, Math.min(1, Math.abs(value - colorStartValue)));
+            applyColor(blendColors(colorFrom, colorTo, fraction));
+        }
         invalidateSelf();
+        dispatchTransformation();
     }
 
-    private void initAnimations(int transformDuration) {
-        transformation = ObjectAnimator.ofFloat(this, transformationProperty, 0);
-        transformation.setInterpolator(new DecelerateInterpolator(3));
-        transformation.setDuration(transformDuration);
-        transformation.addListener(new AnimatorListenerAdapter() {
-            @Override public void onAnimationEnd(Animator animation) {
-                transformationRunning = false;
-                setIconState(animatingIconState);
+    private static int blendColors(int from, int to, float fraction) {
+        final int a = (int) (Color.alpha(from) + (Color.alpha(to) - Color.alpha(from)) * fraction);
+        final int r = (int) (Color.red(from) + (Color.red(to) - Color.red(from)) * fraction);
+        final int g = (int) (Color.green(from) + (Color.green(to) - Color.green(from)) * fraction);
+        final int b = (int) (Color.blue(from) + (Color.blue(to) - Color.blue(from)) * fraction);
+        return Color.argb(a, r, g, b);
+    }
+
+    private void dispatchTransformation() {
+        if (transformationListener != null) {
+            final float value = transformationValue;
+            final float fraction = value <= TRANSFORMATION_MID ? value : TRANSFORMATION_END - value;
+            transformationListener.onTransformation(animationState, value, fraction);
+        }
+    }
+
+    /**
+     * The animator is created on the first transformation instead of in the constructor, so
+     * drawables can be constructed on any thread, i.e. during asynchronous layout inflation
+     */
+    private ObjectAnimator getTransformation() {
+        if (transformation == null) {
+            transformation = ObjectAnimator.ofFloat(this, TRANSFORMATION_PROPERTY, 0);
+            transformation.setInterpolator(interpolator);
+            transformation.setDuration(transformDuration);
+            transformation.addListener(new AnimatorListenerAdapter() {
+                @Override public void onAnimationEnd(Animator animation) {
+                    onTransformationEnd();
+                }
+            });
+            if (animatorListener != null) {
+                transformation.addListener(animatorListener);
             }
-        });
+        }
+        return transformation;
+    }
+
+    private void onTransformationEnd() {
+        transformationRunning = false;
+        if (animatingKeyframeState >= 0) {
+            setKeyframeState(animatingKeyframeState);
+        } else {
+            setIconState(animatingIconState);
+        }
     }
 
     private boolean resolveTransformation() {
-        boolean isCurrentBurger = currentIconState == IconState.BURGER;
-        boolean isCurrentArrow = currentIconState == IconState.ARROW;
-        boolean isCurrentX = currentIconState == IconState.X;
-        boolean isCurrentCheck = currentIconState == IconState.CHECK;
-        boolean isCurrentHide = currentIconState == IconState.HIDE;
-        boolean isAnimatingBurger = animatingIconState == IconState.BURGER;
-        boolean isAnimatingArrow = animatingIconState == IconState.ARROW;
-        boolean isAnimatingX = animatingIconState == IconState.X;
-        boolean isAnimatingCheck = animatingIconState == IconState.CHECK;
-        boolean isAnimatingHide = animatingIconState == IconState.HIDE;
+        animationState = resolveAnimationState(currentIconState, animatingIconState);
+        return currentIconState == animationState.getFirstState();
+    }
 
-        if ((isCurrentBurger && isAnimatingArrow) || (isCurrentArrow && isAnimatingBurger)) {
-            animationState = AnimationState.BURGER_ARROW;
-            return isCurrentBurger;
+    /**
+     * Resolve the {@link AnimationState} that transforms between the two given icons
+     */
+    static AnimationState resolveAnimationState(IconState first, IconState second) {
+        for (AnimationState state : AnimationState.values()) {
+            final IconState stateFirst = state.getFirstState();
+            final IconState stateSecond = state.getSecondState();
+            if ((stateFirst == first && stateSecond == second) || (stateFirst == second && stateSecond == first)) {
+                return state;
+            }
         }
 
-        if ((isCurrentBurger && isAnimatingX) || (isCurrentX && isAnimatingBurger)) {
-            animationState = AnimationState.BURGER_X;
-            return isCurrentBurger;
+        throw new IllegalStateException(
+            String.format("Animating from %s to %s is not supported", first, second)
+        );
+    }
+
+    @Override public void start() {
+        if (transformationRunning) return;
+
+        if (animatingIconState != null && animatingIconState != currentIconState) {
+            if (!canAnimate()) {
+                setIconState(animatingIconState);
+                return;
+            }
+
+            transformationRunning = true;
+
+            final boolean direction = resolveTransformation();
+            colorStartValue = direction ? TRANSFORMATION_START : TRANSFORMATION_MID;
+            startAnimator(
+                direction ? TRANSFORMATION_START : TRANSFORMATION_MID,
+                direction ? TRANSFORMATION_MID : TRANSFORMATION_END
+            );
         }
 
-        if ((isCurrentBurger && isAnimatingCheck) || (isCurrentCheck && isAnimatingBurger)) {
-            animationState = AnimationState.BURGER_CHECK;
-            return isCurrentBurger;
+        invalidateSelf();
+    }
+
+    private void endTransformation() {
+        if (springRunning) {
+            finishSpring();
+        } else {
+            endAnimator();
         }
+    }
 
-        if ((isCurrentBurger && isAnimatingHide) || (isCurrentHide && isAnimatingBurger)) {
-            animationState = AnimationState.BURGER_HIDE;
-            return isCurrentBurger;
+    /*
+     * Timed transformation, either run by the animation framework or stepped by a custom clock
+     */
+
+    /**
+     * Time transformations with a custom clock instead of the platform animation framework,
+     * i.e. a {@link ManualAnimationClock} in tests and benchmarks. Timed transformations are
+     * interpolated directly on clock frames, so no {@link ObjectAnimator} is created and they
+     * run without the framework. Running transformations are ended first. Animation listeners
+     * are still notified about start, cancel and end, with a null animator.
+     *
+     * @param clock clock to use or null for the platform animation framework
+     */
+    public void setAnimationClock(AnimationClock clock) {
+        synchronized (lock) {
+            if (transformationRunning) {
+                endTransformation();
+            }
+
+            this.clock = clock;
+            if (clock != null && clockFrame == null) {
+                clockFrame = new AnimationClock.FrameCallback() {
+                    @Override public void doFrame(long frameTimeMillis) {
+                        onClockFrame(frameTimeMillis);
+                    }
+                };
+            }
         }
+    }
 
-        if ((isCurrentArrow && isAnimatingX) || (isCurrentX && isAnimatingArrow)) {
-            animationState = AnimationState.ARROW_X;
-            return isCurrentArrow;
+    private void startAnimator(float from, float to) {
+        if (clock == null) {
+            getTransformation().setFloatValues(from, to);
+            transformation.start();
+            return;
         }
 
-        if ((isCurrentArrow && isAnimatingCheck) || (isCurrentCheck && isAnimatingArrow)) {
-            animationState = AnimationState.ARROW_CHECK;
-            return isCurrentArrow;
+        clockStartTime = clock.uptimeMillis();
+        clockFrom = from;
+        clockTo = to;
+        if (animatorListener != null) {
+            animatorListener.onAnimationStart(null);
         }
+        applyTransformationValue(from);
+        clock.postFrameCallback(clockFrame);
+    }
 
-        if ((isCurrentArrow && isAnimatingHide) || (isCurrentHide && isAnimatingArrow)) {
-            animationState = AnimationState.ARROW_HIDE;
-            return isCurrentArrow;
+    private void endAnimator() {
+        if (clock == null) {
+            transformation.end();
+            return;
         }
 
-        if ((isCurrentX && isAnimatingCheck) || (isCurrentCheck && isAnimatingX)) {
-            animationState = AnimationState.X_CHECK;
-            return isCurrentX;
+        clock.removeFrameCallback(clockFrame);
+        finishClockAnimator();
+    }
+
+    private void cancelAnimator() {
+        if (clock == null) {
+            transformation.cancel();
+            return;
         }
 
-        if ((isCurrentX && isAnimatingHide) || (isCurrentHide && isAnimatingX)) {
-            animationState = AnimationState.X_HIDE;
-            return isCurrentX;
+        clock.removeFrameCallback(clockFrame);
+        if (animatorListener != null) {
+            animatorListener.onAnimationCancel(null);
+            animatorListener.onAnimationEnd(null);
         }
+    }
+
+    private void onClockFrame(long frameTime) {
+        if (!transformationRunning) return;
 
-        if ((isCurrentCheck && isAnimatingHide) || (isCurrentHide && isAnimatingCheck)) {
-            animationState = AnimationState.CHECK_HIDE;
-            return isCurrentCheck;
+        if (springRunning) {
+            stepSpring(frameTime);
+            if (springRunning) {
+                clock.postFrameCallback(clockFrame);
+            }
+            return;
         }
 
-        throw new IllegalStateException(
-            String.format("Animating from %s to %s is not supported", currentIconState, animatingIconState)
-        );
+        final long playTime = frameTime - clockStartTime;
+        if (playTime >= transformDuration) {
+            finishClockAnimator();
+        } else {
+            final float fraction = interpolator.getInterpolation((float) playTime / transformDuration);
+            applyTransformationValue(clockFrom + (clockTo - clockFrom) * fraction);
+            clock.postFrameCallback(clockFrame);
+        }
     }
 
-    @Override public void start() {
-        if (transformationRunning) return;
+    private void finishClockAnimator() {
+        applyTransformationValue(clockTo);
+        onTransformationEnd();
+        if (animatorListener != null) {
+            animatorListener.onAnimationEnd(null);
+        }
+    }
 
-        if (animatingIconState != null && animatingIconState != currentIconState) {
-            transformationRunning = true;
+    /**
+     * Return false if a new transformation would run while nobody can see it. The icon then
+     * jumps to its new state instead, the same as a running transformation that is paused.
+     */
+    private boolean canAnimate() {
+        // a custom clock decides itself when frames are produced
+        return clock != null || isVisible();
+    }
 
-            final boolean direction = resolveTransformation();
-            transformation.setFloatValues(
-                direction ? TRANSFORMATION_START : TRANSFORMATION_MID,
-                direction ? TRANSFORMATION_MID : TRANSFORMATION_END
-            );
-            transformation.start();
+    private void pauseTransformation() {
+        // a custom clock decides itself when frames are produced
+        if (!transformationRunning || clock != null) return;
+
+        if (springRunning) {
+            finishSpring();
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            transformation.pause();
+        } else {
+            transformation.end();
         }
+    }
 
-        invalidateSelf();
+    private void resumeTransformation() {
+        if (!transformationRunning || springRunning || clock != null) return;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && transformation.isPaused()) {
+            transformation.resume();
+        }
     }
 
     @Override public void stop() {
-        if (isRunning() && transformation.isRunning()) {
-            transformation.end();
+        if (isRunning() && springRunning) {
+            finishSpring();
+        } else if (isRunning() && (clock != null || (transformation != null && transformation.isRunning()))) {
+            endAnimator();
         } else {
             transformationRunning = false;
             invalidateSelf();
         }
     }
 
+    /*
+     * Spring transformation
+     */
+
+    private void startSpring() {
+        transformationRunning = true;
+        springRunning = true;
+
+        if (clock != null) {
+            springFrameTime = clock.uptimeMillis();
+            clock.postFrameCallback(clockFrame);
+            return;
+        }
+
+        if (springTicker == null) {
+            // ticks on every animation frame, the spring keeps its own time
+            springTicker = ValueAnimator.ofFloat(0, 1);
+            springTicker.setDuration(DEFAULT_TRANSFORM_DURATION);
+            springTicker.setRepeatCount(ValueAnimator.INFINITE);
+            springTicker.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override public void onAnimationUpdate(ValueAnimator animation) {
+                    stepSpring(AnimationUtils.currentAnimationTimeMillis());
+                }
+            });
+        }
+
+        springFrameTime = AnimationUtils.currentAnimationTimeMillis();
+        springTicker.start();
+    }
+
+    private void stepSpring(long frameTime) {
+        if (!springRunning) return;
+
+        final long elapsed = Math.min(frameTime - springFrameTime, SPRING_MAX_ELAPSED);
+        springFrameTime = frameTime;
+
+        final float damping = 2 * springDampingRatio * (float) Math.sqrt(springStiffness);
+        final float start = transformationValue - springTarget;
+        float position = start;
+        float velocity = springVelocity;
+        for (long remaining = elapsed; remaining > 0; remaining -= SPRING_STEP) {
+            final float dt = Math.min(SPRING_STEP, remaining) / 1000f;
+            velocity += (-springStiffness * position - damping * velocity) * dt;
+            position += velocity * dt;
+        }
+        springVelocity = velocity;
+
+        // half a pixel along the icon width is no longer visible
+        final float threshold = 0.5f / geometry.iconWidth;
+        final boolean crossed = position * start <= 0;
+        if (crossed || (Math.abs(position) < threshold && Math.abs(velocity) * SPRING_MAX_ELAPSED / 1000f < threshold)) {
+            finishSpring();
+        } else {
+            applyTransformationValue(springTarget + position);
+        }
+    }
+
+    private void finishSpring() {
+        cancelSpring();
+        transformationRunning = false;
+
+        // land exactly on the target, setIconState() skips a state the offset already maps to
+        applyTransformationValue(springTarget);
+        setIconState(animatingIconState);
+    }
+
+    private void cancelSpring() {
+        springRunning = false;
+        if (clock != null) {
+            clock.removeFrameCallback(clockFrame);
+        } else {
+            springTicker.cancel();
+        }
+    }
+
     @Override public boolean isRunning() {
         return transformationRunning;
     }
 
+    MaterialMenuGeometry getGeometry() {
+        return geometry;
+    }
+
     @Override public int getIntrinsicWidth() {
         return width;
     }
@@ -1059,39 +1509,121 @@ public class MaterialMenuDrawable extends Drawable implements MaterialMenu, Anim
         return height;
     }
 
+    /**
+     * Immutable snapshot of what this drawable currently shows, or settles at if it is
+     * transforming. Drawables cloned from it share it until their configuration changes, only
+     * then a new snapshot is taken. Holders of earlier snapshots are never affected, so
+     * {@link #mutate()} has nothing to copy.
+     */
     @Override public ConstantState getConstantState() {
-        materialMenuState.changingConfigurations = getChangingConfigurations();
-        return materialMenuState;
+        if (constantState == null || !constantState.describes(this)) {
+            constantState = new MaterialMenuState(this);
+        }
+        return constantState;
+    }
+
+    private IconState getSettledIconState() {
+        return transformationRunning && animatingIconState != null ? animatingIconState : currentIconState;
     }
 
-    @Override public Drawable mutate() {
-        materialMenuState = new MaterialMenuState();
-        return this;
+    private int getSettledColor() {
+        return colorRunning ? colorTo : circlePaint.getColor();
     }
 
-    private final class MaterialMenuState extends ConstantState {
-        private int changingConfigurations;
+    /**
+     * Everything needed to clone a drawable. The geometry is immutable and shared by reference,
+     * so cloning neither resolves dimensions nor copies any arrays.
+     */
+    private static final class MaterialMenuState extends ConstantState {
+        private final MaterialMenuGeometry geometry;
+
+        private final int          color;
+        private final int          transformDuration;
+        private final Interpolator interpolator;
+        private final IconState    iconState;
+        private final boolean      visible;
+        private final boolean      rtlEnabled;
+        private final boolean      autoMirrored;
+        private final boolean      pressedCircleEnabled;
+        private final int          alpha;
+        private final long         drawBudget;
+        private final float        springStiffness;
+        private final float        springDampingRatio;
+        private final int          changingConfigurations;
+
+        private final ColorStateList  tint;
+        private final PorterDuff.Mode tintMode;
+        private final ColorFilter     colorFilter;
+
+        private MaterialMenuState(MaterialMenuGeometry geometry, int color, int transformDuration) {
+            this.geometry = geometry;
+            this.color = color;
+            this.transformDuration = transformDuration;
+            this.interpolator = DEFAULT_INTERPOLATOR;
+            this.iconState = IconState.BURGER;
+            this.visible = DEFAULT_VISIBLE;
+            this.rtlEnabled = false;
+            this.autoMirrored = false;
+            this.pressedCircleEnabled = false;
+            this.alpha = 255;
+            this.drawBudget = DEFAULT_DRAW_BUDGET * 1000L;
+            this.springStiffness = DEFAULT_SPRING_STIFFNESS;
+            this.springDampingRatio = DEFAULT_SPRING_DAMPING_RATIO;
+            this.changingConfigurations = 0;
+            this.tint = null;
+            this.tintMode = DEFAULT_TINT_MODE;
+            this.colorFilter = null;
+        }
 
-        private MaterialMenuState() {
+        private MaterialMenuState(MaterialMenuDrawable drawable) {
+            this.geometry = drawable.geometry;
+            this.color = drawable.getSettledColor();
+            this.transformDuration = drawable.transformDuration;
+            this.interpolator = drawable.interpolator;
+            this.iconState = drawable.getSettledIconState();
+            this.visible = drawable.visible;
+            this.rtlEnabled = drawable.rtlEnabled;
+            this.autoMirrored = drawable.autoMirrored;
+            this.pressedCircleEnabled = drawable.pressedCircleEnabled;
+            this.alpha = drawable.alpha;
+            this.drawBudget = drawable.drawBudget;
+            this.springStiffness = drawable.springStiffness;
+            this.springDampingRatio = drawable.springDampingRatio;
+            this.changingConfigurations = drawable.getChangingConfigurations();
+            this.tint = drawable.tint;
+            this.tintMode = drawable.tintMode;
+            this.colorFilter = drawable.colorFilter;
+        }
+
+        /**
+         * Return true if the drawable would be cloned exactly as this state clones it
+         */
+        private boolean describes(MaterialMenuDrawable drawable) {
+            return geometry == drawable.geometry
+                && color == drawable.getSettledColor()
+                && transformDuration == drawable.transformDuration
+                && interpolator == drawable.interpolator
+                && iconState == drawable.getSettledIconState()
+                && visible == drawable.visible
+                && rtlEnabled == drawable.rtlEnabled
+                && autoMirrored == drawable.autoMirrored
+                && pressedCircleEnabled == drawable.pressedCircleEnabled
+                && alpha == drawable.alpha
+                && drawBudget == drawable.drawBudget
+                && springStiffness == drawable.springStiffness
+                && springDampingRatio == drawable.springDampingRatio
+                && changingConfigurations == drawable.getChangingConfigurations()
+                && tint == drawable.tint
+                && tintMode == drawable.tintMode
+                && colorFilter == drawable.colorFilter;
         }
 
         @Override public Drawable newDrawable() {
-            MaterialMenuDrawable drawable = new MaterialMenuDrawable(
-                circlePaint.getColor(), stroke, transformation.getDuration(),
-                width, height, iconWidth, circleRadius, strokeWidth, dip1
-            );
-            drawable.setIconState(animatingIconState != null ? animatingIconState : currentIconState);
-            drawable.setVisible(visible);
-            drawable.setRTLEnabled(rtlEnabled);
-            return drawable;
+            return new MaterialMenuDrawable(this);
         }
 
         @Override public int getChangingConfigurations() {
             return changingConfigurations;
         }
     }
-
-    static float dpToPx(Resources resources, float dp) {
-        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, resources.getDisplayMetrics());
-    }
 }
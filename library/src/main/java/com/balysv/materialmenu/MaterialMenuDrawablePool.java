@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.DEFAULT_SCALE;
+import static com.balysv.materialmenu.MaterialMenuDrawable.DEFAULT_TRANSFORM_DURATION;
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.Stroke;
+
+/**
+ * Pool of {@link MaterialMenuDrawable}s for recycled rows, i.e. of a {@code RecyclerView}.
+ * Drawables are pooled per stroke and scale, color and duration are applied on every acquire,
+ * so steady-state scrolling does not construct any drawables.
+ * <p>
+ * Usage:
+ * <pre>
+ * public void onBindViewHolder(ViewHolder holder, int position) {
+ *     holder.icon.setImageDrawable(pool.acquire(color, Stroke.REGULAR, items.get(position).state));
+ * }
+ *
+ * public void onViewRecycled(ViewHolder holder) {
+ *     MaterialMenuDrawable drawable = (MaterialMenuDrawable) holder.icon.getDrawable();
+ *     holder.icon.setImageDrawable(null);
+ *     pool.release(drawable);
+ * }
+ * </pre>
+ * The pool is not thread safe and should only be used from the main thread.
+ */
+public class MaterialMenuDrawablePool {
+
+    private static final int DEFAULT_MAX_POOL_SIZE = 16;
+
+    private final Resources resources;
+    private final int       maxPoolSize;
+
+    private final Map<MaterialMenuGeometry, List<MaterialMenuDrawable>> pool = new HashMap<>();
+
+    public MaterialMenuDrawablePool(Context context) {
+        this(context, DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * @param maxPoolSize maximum number of released drawables kept per stroke and scale
+     */
+    public MaterialMenuDrawablePool(Context context, int maxPoolSize) {
+        this.resources = context.getResources();
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public MaterialMenuDrawable acquire(int color, Stroke stroke, IconState state) {
+        return acquire(color, stroke, DEFAULT_SCALE, DEFAULT_TRANSFORM_DURATION, state);
+    }
+
+    /**
+     * Acquire a drawable, either a released one or a new one if none is available
+     *
+     * @param state icon state the drawable is reset to
+     * @return drawable without running transformations or listeners
+     */
+    public MaterialMenuDrawable acquire(int color, Stroke stroke, int scale, int transformDuration, IconState state) {
+        final MaterialMenuGeometry geometry = MaterialMenuGeometry.obtain(resources, stroke, scale);
+
+        final List<MaterialMenuDrawable> drawables = pool.get(geometry);
+        final int size = drawables != null ? drawables.size() : 0;
+        if (size == 0) {
+            final MaterialMenuDrawable drawable = new MaterialMenuDrawable(geometry, color, transformDuration);
+            drawable.setIconState(state);
+            return drawable;
+        }
+
+        // already reset when it was released
+        final MaterialMenuDrawable drawable = drawables.remove(size - 1);
+        drawable.setIconState(state);
+        drawable.setColor(color);
+        drawable.setTransformationDuration(transformDuration);
+        return drawable;
+    }
+
+    /**
+     * Return a drawable to the pool. Remove the drawable from its view first, otherwise the view
+     * keeps drawing a drawable that may be handed out again. The drawable is detached from its
+     * callback and must not be used by the caller afterwards.
+     *
+     * @param drawable drawable acquired from this pool
+     */
+    public void release(MaterialMenuDrawable drawable) {
+        drawable.setCallback(null);
+        drawable.reset(IconState.BURGER);
+
+        final MaterialMenuGeometry geometry = drawable.getGeometry();
+        List<MaterialMenuDrawable> drawables = pool.get(geometry);
+        if (drawables == null) {
+            drawables = new ArrayList<>(maxPoolSize);
+            pool.put(geometry, drawables);
+        }
+
+        if (drawables.size() < maxPoolSize && !drawables.contains(drawable)) {
+            drawables.add(drawable);
+        }
+    }
+
+    /**
+     * Drop all released drawables
+     */
+    public void clear() {
+        pool.clear();
+    }
+}
@@ -0,0 +1,745 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import android.content.res.Resources;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.AnimationState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.Stroke;
+
+/**
+ * Resolves the three lines of {@link MaterialMenuDrawable} into flat segments for a given
+ * {@link AnimationState} and transformation value. Rotations are applied to the segment
+ * end points so the result can be stroked directly without any canvas transformations.
+ * <p>
+ * Instances are shared by all drawables with the same density, scale and stroke, and keep
+ * the last computed frame so that icons transforming in sync resolve their lines only once.
+ * Mirrored frames for right-to-left layouts are kept separately, so mixed directions do not
+ * evict each other.
+ */
+final class MaterialMenuGeometry {
+
+    static final int TOP_LINE    = 0;
+    static final int MIDDLE_LINE = 1;
+    static final int BOTTOM_LINE = 2;
+    static final int LINE_COUNT  = 3;
+
+    /**
+     * Segment layout: startX, startY, stopX, stopY, alpha [0, 255]
+     */
+    static final int SEGMENT_STRIDE = 5;
+    static final int SEGMENTS_SIZE  = LINE_COUNT * SEGMENT_STRIDE;
+
+    private static final int BASE_DRAWABLE_WIDTH  = 40;
+    private static final int BASE_DRAWABLE_HEIGHT = 40;
+    private static final int BASE_ICON_WIDTH      = 20;
+    private static final int BASE_CIRCLE_RADIUS   = 18;
+
+    private static final float ARROW_MID_LINE_ANGLE = 180;
+    private static final float ARROW_TOP_LINE_ANGLE = 135;
+    private static final float ARROW_BOT_LINE_ANGLE = 225;
+    private static final float X_TOP_LINE_ANGLE     = 44;
+    private static final float X_BOT_LINE_ANGLE     = -44;
+    private static final float X_ROTATION_ANGLE     = 90;
+    private static final float CHECK_MIDDLE_ANGLE   = 135;
+    private static final float CHECK_BOTTOM_ANGLE   = -90;
+
+    private static final float TRANSFORMATION_MID = 1.0f;
+
+    private static final int WARM_UP_STEPS = 16;
+
+    private static final Map<Long, MaterialMenuGeometry> CACHE = new HashMap<>();
+
+    final float diph;
+    final float dip1;
+    final float dip2;
+    final float dip3;
+    final float dip4;
+    final float dip8;
+
+    final int    width;
+    final int    height;
+    final float  strokeWidth;
+    final float  iconWidth;
+    final float  topPadding;
+    final float  sidePadding;
+    final float  circleRadius;
+    final Stroke stroke;
+
+    private final float[] segments = new float[SEGMENTS_SIZE];
+
+    private AnimationState animationState;
+    private float          transformationValue = Float.NaN;
+
+    private final float[] mirroredSegments = new float[SEGMENTS_SIZE];
+
+    private AnimationState mirroredAnimationState;
+    private float          mirroredTransformationValue = Float.NaN;
+
+    private MaterialMenuGeometry(Resources resources, Stroke stroke, int scale) {
+        this(resources.getDisplayMetrics().density, stroke, scale);
+    }
+
+    /**
+     * Geometry for an explicit density, not shared. Used directly by tests that run without
+     * the framework resolving dimensions.
+     */
+    MaterialMenuGeometry(float density, Stroke stroke, int scale) {
+        // convert each separately due to various densities
+        this.dip1 = dpToPx(density, 1) * scale;
+        this.dip2 = dpToPx(density, 2) * scale;
+        this.dip3 = dpToPx(density, 3) * scale;
+        this.dip4 = dpToPx(density, 4) * scale;
+        this.dip8 = dpToPx(density, 8) * scale;
+        this.diph = dip1 / 2;
+
+        this.stroke = stroke;
+        this.width = (int) (dpToPx(density, BASE_DRAWABLE_WIDTH) * scale);
+        this.height = (int) (dpToPx(density, BASE_DRAWABLE_HEIGHT) * scale);
+        this.iconWidth = dpToPx(density, BASE_ICON_WIDTH) * scale;
+        this.circleRadius = dpToPx(density, BASE_CIRCLE_RADIUS) * scale;
+        this.strokeWidth = dpToPx(density, stroke.strokeWidth) * scale;
+
+        this.sidePadding = (width - iconWidth) / 2;
+        this.topPadding = (height - 5 * dip3) / 2;
+    }
+
+    /**
+     * Return the shared geometry for the given resources, stroke and scale
+     */
+    static MaterialMenuGeometry obtain(Resources resources, Stroke stroke, int scale) {
+        final float density = resources.getDisplayMetrics().density;
+        final long key = ((long) Float.floatToIntBits(density) << 32) | (scale << 8) | stroke.ordinal();
+
+        synchronized (CACHE) {
+            MaterialMenuGeometry geometry = CACHE.get(key);
+            if (geometry == null) {
+                geometry = new MaterialMenuGeometry(resources, stroke, scale);
+                CACHE.put(key, geometry);
+            }
+            return geometry;
+        }
+    }
+
+    /**
+     * Resolve and cache the geometry, then run every transformation once on a private copy so
+     * that classes are initialized and the code has run before the first draw. Safe to call
+     * from any thread, the memo of the cached geometry is never touched.
+     *
+     * @return the cached geometry
+     */
+    static MaterialMenuGeometry warmUp(Resources resources, Stroke stroke, int scale) {
+        final MaterialMenuGeometry geometry = obtain(resources, stroke, scale);
+
+        final MaterialMenuGeometry scratch = new MaterialMenuGeometry(resources, stroke, scale);
+        for (AnimationState state : AnimationState.values()) {
+            for (int step = 0; step <= WARM_UP_STEPS; step++) {
+                scratch.compute(state, 2f * step / WARM_UP_STEPS, step % 2 == 1);
+            }
+        }
+
+        return geometry;
+    }
+
+    /**
+     * Resolve all lines for the given state and value. The returned array is owned by this
+     * geometry and is only valid until the next call, callers must not modify it.
+     *
+     * @param animationState      state being transformed
+     * @param transformationValue value between 0 and 2
+     * @return segments laid out by {@link #SEGMENT_STRIDE}
+     */
+    float[] compute(AnimationState animationState, float transformationValue) {
+        if (this.animationState == animationState && this.transformationValue == transformationValue) {
+            return segments;
+        }
+
+        this.animationState = animationState;
+        this.transformationValue = transformationValue;
+
+        final float ratio = transformationValue <= 1 ? transformationValue : 2 - transformationValue;
+
+        computeTopLine(ratio);
+        computeMiddleLine(ratio);
+        computeBottomLine(ratio);
+
+        return segments;
+    }
+
+    /**
+     * Resolve all lines for the given state and value, optionally mirrored horizontally within
+     * the drawable width
+     *
+     * @see #compute(AnimationState, float)
+     */
+    float[] compute(AnimationState animationState, float transformationValue, boolean mirrored) {
+        final float[] segments = compute(animationState, transformationValue);
+        if (!mirrored) return segments;
+
+        if (mirroredAnimationState != animationState || mirroredTransformationValue != transformationValue) {
+            mirroredAnimationState = animationState;
+            mirroredTransformationValue = transformationValue;
+            System.arraycopy(segments, 0, mirroredSegments, 0, SEGMENTS_SIZE);
+            mirror(mirroredSegments, width);
+        }
+        return mirroredSegments;
+    }
+
+    /**
+     * Mirror segments horizontally in place
+     *
+     * @param segments segments laid out by {@link #SEGMENT_STRIDE}
+     * @param width    width to mirror within
+     */
+    static void mirror(float[] segments, int width) {
+        for (int i = 0; i < segments.length; i += SEGMENT_STRIDE) {
+            segments[i] = width - segments[i];
+            segments[i + 2] = width - segments[i + 2];
+        }
+    }
+
+    private void computeTopLine(float ratio) {
+        float transformRatio;
+
+        float rotation = 0, pivotX = 0, pivotY = 0;
+        float rotation2 = 0;
+        // pivot at center of line
+        float pivotX2 = width / 2 + dip3 / 2;
+        float pivotY2 = topPadding + dip2;
+
+        float startX = sidePadding;
+        float startY = topPadding + dip2;
+        float stopX = width - sidePadding;
+        float stopY = topPadding + dip2;
+        int alpha = 255;
+
+        switch (animationState) {
+
+            case BURGER_ARROW:
+                if (isMorphingForward()) {
+                    // rotate until required angle
+                    rotation = ratio * ARROW_BOT_LINE_ANGLE;
+                } else {
+                    // rotate back to start doing a 360
+                    rotation = ARROW_BOT_LINE_ANGLE + (1 - ratio) * ARROW_TOP_LINE_ANGLE;
+                }
+                // rotate by middle
+                pivotX = width / 2;
+                pivotY = height / 2;
+                // shorten both ends
+                stopX -= resolveStrokeModifier(ratio);
+                startX += dip3 * ratio;
+                break;
+
+            case BURGER_X:
+                // rotate until required angles
+                rotation = X_TOP_LINE_ANGLE * ratio;
+                rotation2 = X_ROTATION_ANGLE * ratio;
+                // pivot at left corner of line
+                pivotX = sidePadding + dip4;
+                pivotY = topPadding + dip3;
+                // shorten one end
+                startX += dip3 * ratio;
+                break;
+
+            case BURGER_CHECK:
+                // fade out
+                alpha = (int) ((1 - ratio) * 255);
+                break;
+
+            case BURGER_HIDE:
+                if (isMorphingForward()) {
+                    transformRatio = transformRatio(ratio, 0, .6f);
+                } else {
+                    transformRatio = transformRatio(ratio, .4f, .9f);
+                }
+                startX = (1 - transformRatio) * startX + transformRatio * startX / 1.5f;
+                stopX = (1 - transformRatio) * stopX + transformRatio * startX;
+                break;
+
+            case ARROW_X:
+                // rotate from ARROW angle to X angle
+                rotation = ARROW_BOT_LINE_ANGLE + (X_TOP_LINE_ANGLE - ARROW_BOT_LINE_ANGLE) * ratio;
+                rotation2 = X_ROTATION_ANGLE * ratio;
+                // move pivot from ARROW pivot to X pivot
+                pivotX = width / 2 + (sidePadding + dip4 - width / 2) * ratio;
+                pivotY = height / 2 + (topPadding + dip3 - height / 2) * ratio;
+                // lengthen both ends
+                stopX -= resolveStrokeModifier(ratio);
+                startX += dip3;
+                break;
+
+            case ARROW_CHECK:
+                // fade out
+                alpha = (int) ((1 - ratio) * 255);
+                // retain starting arrow configuration
+                rotation = ARROW_BOT_LINE_ANGLE;
+                pivotX = width / 2;
+                pivotY = height / 2;
+                // shorted both ends
+                stopX -= resolveStrokeModifier(1);
+                startX += dip3;
+                break;
+
+            case ARROW_HIDE:
+                // rotate to required angle
+                rotation = ARROW_BOT_LINE_ANGLE;
+                // rotate by middle
+                pivotX = width / 2;
+                pivotY = height / 2;
+                // slide
+                float slide = isMorphingForward() ? 0 : transformRatio(ratio, .1f, 1) * sidePadding / 8;
+                startY += slide;
+                stopY += slide;
+                // shorten left ends
+                stopX -= resolveStrokeModifier(1) + slide;
+                // shorten right end
+                transformRatio = transformRatio(ratio,
+                        isMorphingForward() ? .0f : 0,
+                        isMorphingForward() ? .5f : .4f);
+                startX = (1 - transformRatio) * (startX - slide + dip3) + transformRatio * (stopX + dip2);
+                if (startX > stopX) {
+                    startX = stopX;
+                }
+                break;
+
+            case X_CHECK:
+                // retain X configuration
+                rotation = X_TOP_LINE_ANGLE;
+                rotation2 = X_ROTATION_ANGLE;
+                pivotX = sidePadding + dip4;
+                pivotY = topPadding + dip3;
+                stopX += dip3 - dip3 * (1 - ratio);
+                startX += dip3;
+                // fade out
+                alpha = (int) ((1 - ratio) * 255);
+                break;
+
+            case X_HIDE:
+                // rotate to required angles
+                rotation = X_TOP_LINE_ANGLE;
+                rotation2 = X_ROTATION_ANGLE;
+                // pivot at left corner of line
+                pivotX = sidePadding + dip4;
+                pivotY = topPadding + dip3;
+                // shorten one end
+                if (isMorphingForward()) {
+                    transformRatio = transformRatio(ratio, .4f, .92f);
+                } else {
+                    transformRatio = transformRatio(ratio, 0, .5f);
+                }
+                if (isMorphingForward()) {
+                    startX += dip3;
+                    stopX = (1 - transformRatio) * stopX + transformRatio * startX;
+                } else {
+                    startX = (1 - transformRatio) * (startX + dip3) + transformRatio * stopX;
+                }
+                break;
+
+            case CHECK_HIDE:
+                // hide
+                alpha = 0;
+                break;
+        }
+
+        putSegment(TOP_LINE, startX, startY, stopX, stopY, alpha, rotation, pivotX, pivotY, rotation2, pivotX2, pivotY2);
+    }
+
+
+    private void computeMiddleLine(float ratio) {
+        float transformRatio;
+
+        float rotation = 0;
+        float pivotX = width / 2;
+        float pivotY = width / 2;
+        float startX = sidePadding;
+        float startY = topPadding + dip3 / 2 * 5;
+        float stopX = width - sidePadding;
+        float stopY = topPadding + dip3 / 2 * 5;
+        int alpha = 255;
+
+        switch (animationState) {
+
+            case BURGER_ARROW:
+                // rotate by 180
+                if (isMorphingForward()) {
+                    rotation = ratio * ARROW_MID_LINE_ANGLE;
+                } else {
+                    rotation = ARROW_MID_LINE_ANGLE + (1 - ratio) * ARROW_MID_LINE_ANGLE;
+                }
+                // shorten one end
+                stopX -= ratio * resolveStrokeModifier(ratio) / 2;
+                break;
+
+            case BURGER_X:
+                // fade out
+                alpha = (int) ((1 - ratio) * 255);
+                break;
+
+            case BURGER_CHECK:
+                // rotate until required angle
+                rotation = ratio * CHECK_MIDDLE_ANGLE;
+                // lengthen both ends
+                startX += ratio * (dip4 + dip3 / 2);
+                stopX += ratio * dip1;
+                pivotX = width / 2 + dip3 + diph;
+                break;
+
+            case BURGER_HIDE:
+                transformRatio = transformRatio(ratio, .2f, .8f);
+                startX = (1 - transformRatio) * startX + transformRatio * startX / 1.5f;
+                stopX = (1 - transformRatio) * stopX + transformRatio * startX;
+                break;
+
+            case ARROW_X:
+                // fade out and shorten one end
+                alpha = (int) ((1 - ratio) * 255);
+                startX += (1 - ratio) * dip2;
+                break;
+
+            case ARROW_CHECK:
+                if (isMorphingForward()) {
+                    // rotate until required angle
+                    rotation = ratio * CHECK_MIDDLE_ANGLE;
+                } else {
+                    // rotate back to starting angle
+                    rotation = CHECK_MIDDLE_ANGLE - CHECK_MIDDLE_ANGLE * (1 - ratio);
+                }
+                // shorten one end and lengthen the other
+                startX += dip3 / 2 + dip4 - (1 - ratio) * dip2;
+                stopX += ratio * dip1;
+                pivotX = width / 2 + dip3 + diph;
+                break;
+
+            case ARROW_HIDE:
+                // shorten left end
+                if (isMorphingForward()) {
+                    float slideRatio = transformRatio(ratio, .4f, .9f);
+                    transformRatio = transformRatio(ratio, .5f, .9f);
+                    startX = (1 - slideRatio) * (startX + resolveStrokeModifier(1) / 2) + slideRatio * (startX - sidePadding / 6);
+                    stopX = (1 - transformRatio) * stopX + transformRatio * startX;
+                } else {
+                    float slide = transformRatio(ratio, .1f, 1) * sidePadding;
+                    transformRatio = transformRatio(ratio, .6f, 1);
+                    stopX += slide / 2;
+                    startX = (1 - transformRatio) * (startX + slide / 4 + resolveStrokeModifier(1) / 2) + transformRatio * stopX;
+                }
+                break;
+
+            case X_CHECK:
+                // fade in
+                alpha = (int) (ratio * 255);
+                // rotation to check angle
+                rotation = ratio * CHECK_MIDDLE_ANGLE;
+                // lengthen both ends
+                startX += ratio * (dip4 + dip3 / 2);
+                stopX += ratio * dip1;
+                pivotX = width / 2 + dip3 + diph;
+                break;
+
+            case X_HIDE:
+                // hide
+                alpha = 0;
+                break;
+
+            case CHECK_HIDE:
+                // rotate to required angle
+                rotation = CHECK_MIDDLE_ANGLE;
+                pivotX = width / 2 + dip3 + diph;
+                // change length
+                if (isMorphingForward()) {
+                    transformRatio = transformRatio(ratio, .3f, .9f);
+                    startX += dip4 + dip3 / 2;
+                    stopX = (1 - transformRatio) * (stopX + dip1 + diph / 2) + transformRatio * startX;
+                } else {
+                    transformRatio = transformRatio(ratio, 0, 0.7f);
+                    stopX -= 1.5 * diph;
+                    startX = (1 - transformRatio) * (startX + dip4 + dip3 / 2) + transformRatio * stopX;
+                }
+                break;
+        }
+
+        putSegment(MIDDLE_LINE, startX, startY, stopX, stopY, alpha, rotation, pivotX, pivotY, 0, 0, 0);
+    }
+
+
+    private void computeBottomLine(float ratio) {
+        float transformRatio;
+
+        float rotation = 0, pivotX = 0, pivotY = 0;
+        float rotation2 = 0;
+        // pivot at center of line
+        float pivotX2 = width / 2 + dip3 / 2;
+        float pivotY2 = height - topPadding - dip2;
+
+        float startX = sidePadding;
+        float startY = height - topPadding - dip2;
+        float stopX = width - sidePadding;
+        float stopY = height - topPadding - dip2;
+        int alpha = 255;
+
+        switch (animationState) {
+
+            case BURGER_ARROW:
+                if (isMorphingForward()) {
+                    // rotate to required angle
+                    rotation = ARROW_TOP_LINE_ANGLE * ratio;
+                } else {
+                    // rotate back to start doing a 360
+                    rotation = ARROW_TOP_LINE_ANGLE + (1 - ratio) * ARROW_BOT_LINE_ANGLE;
+                }
+                // pivot center of canvas
+                pivotX = width / 2;
+                pivotY = height / 2;
+                // shorten both ends
+                stopX = width - sidePadding - resolveStrokeModifier(ratio);
+                startX = sidePadding + dip3 * ratio;
+                break;
+
+            case BURGER_X:
+                if (isMorphingForward()) {
+                    // rotate around
+                    rotation2 = -X_ROTATION_ANGLE * ratio;
+                } else {
+                    // rotate directly
+                    rotation2 = X_ROTATION_ANGLE * ratio;
+                }
+                // rotate to required angle
+                rotation = X_BOT_LINE_ANGLE * ratio;
+                // pivot left corner of line
+                pivotX = sidePadding + dip4;
+                pivotY = height - topPadding - dip3;
+                // shorten one end
+                startX += dip3 * ratio;
+                break;
+
+            case BURGER_CHECK:
+                // rotate from ARROW angle to CHECK angle
+                rotation = ratio * (CHECK_BOTTOM_ANGLE + ARROW_TOP_LINE_ANGLE);
+                // move pivot from BURGER pivot to CHECK pivot
+                pivotX = width / 2 + dip3 * ratio;
+                pivotY = height / 2 - dip3 * ratio;
+                // length stays same as BURGER
+                startX += dip8 * ratio;
+                stopX -= resolveStrokeModifier(ratio);
+                break;
+
+            case BURGER_HIDE:
+                if (isMorphingForward()) {
+                    transformRatio = transformRatio(ratio, .4f, .9f);
+                } else {
+                    transformRatio = transformRatio(ratio, 0, .6f);
+                }
+                startX = (1 - transformRatio) * startX + transformRatio * startX / 1.5f;
+                stopX = (1 - transformRatio) * stopX + transformRatio * startX;
+                break;
+
+            case ARROW_X:
+                // rotate from ARROW angle to X angle
+                rotation = ARROW_TOP_LINE_ANGLE + (360 + X_BOT_LINE_ANGLE - ARROW_TOP_LINE_ANGLE) * ratio;
+                rotation2 = -X_ROTATION_ANGLE * ratio;
+                // move pivot from ARROW pivot to X pivot
+                pivotX = width / 2 + (sidePadding + dip4 - width / 2) * ratio;
+                pivotY = height / 2 + (height / 2 - topPadding - dip3) * ratio;
+                // lengthen both ends
+                stopX -= resolveStrokeModifier(ratio);
+                startX += dip3;
+                break;
+
+            case ARROW_CHECK:
+                // rotate from ARROW angle to CHECK angle
+                rotation = ARROW_TOP_LINE_ANGLE + ratio * CHECK_BOTTOM_ANGLE;
+                // move pivot from ARROW pivot to CHECK pivot
+                pivotX = width / 2 + dip3 * ratio;
+                pivotY = height / 2 - dip3 * ratio;
+                // length stays same as ARROW
+                stopX -= resolveStrokeModifier(1);
+                startX += dip3 + (dip4 + dip1) * ratio;
+                break;
+
+            case ARROW_HIDE:
+                // rotate to required angle
+                rotation = ARROW_TOP_LINE_ANGLE;
+                // pivot center of canvas
+                pivotX = width / 2;
+                pivotY = height / 2;
+                // slide
+                float slide = isMorphingForward() ? 0 : transformRatio(ratio, .1f, 1) * sidePadding / 8;
+                startY -= slide;
+                stopY -= slide;
+                // shorten left ends
+                stopX = width - sidePadding - resolveStrokeModifier(1) - slide;
+                // shorten right ends
+                transformRatio = transformRatio(ratio,
+                        isMorphingForward() ? .3f : .1f,
+                        isMorphingForward() ? .8f : .6f);
+                startX = (1 - transformRatio) * (sidePadding - slide + dip3) + transformRatio * (stopX + dip2);
+                if (startX > stopX) {
+                    startX = stopX;
+                }
+                break;
+
+            case X_CHECK:
+                // rotate from X to CHECK angles
+                rotation2 = -X_ROTATION_ANGLE * (1 - ratio);
+                rotation = X_BOT_LINE_ANGLE + (CHECK_BOTTOM_ANGLE + ARROW_TOP_LINE_ANGLE - X_BOT_LINE_ANGLE) * ratio;
+                // move pivot from X to CHECK
+                pivotX = sidePadding + dip4 + (width / 2 + dip3 - sidePadding - dip4) * ratio;
+                pivotY = height - topPadding - dip3 + (topPadding + height / 2 - height) * ratio;
+                // shorten both ends
+                startX += dip8 - (dip4 + dip1) * (1 - ratio);
+                stopX -= resolveStrokeModifier(1 - ratio);
+                break;
+
+            case X_HIDE:
+                // rotate to required angles
+                rotation = X_BOT_LINE_ANGLE;
+                rotation2 = -X_ROTATION_ANGLE;
+                // pivot left corner of line
+                pivotX = sidePadding + dip4;
+                pivotY = height - topPadding - dip3;
+                // shorten one end
+                if (isMorphingForward()) {
+                    transformRatio = transformRatio(ratio, 0, .6f);
+                } else {
+                    transformRatio = transformRatio(ratio, .3f, 1);
+                }
+                if (isMorphingForward()) {
+                    startX += dip3;
+                    stopX = (1 - transformRatio) * stopX + transformRatio * startX;
+                } else {
+                    startX = (1 - transformRatio) * (startX + dip3) + transformRatio * stopX;
+                }
+                break;
+
+            case CHECK_HIDE:
+                // rotate to required angle
+                rotation = CHECK_BOTTOM_ANGLE + ARROW_TOP_LINE_ANGLE;
+                // move pivot from BURGER pivot to CHECK pivot
+                pivotX = width / 2 + dip3;
+                pivotY = height / 2 - dip3;
+                // change length
+                if (isMorphingForward()) {
+                    transformRatio = transformRatio(ratio, 0, .3f);
+                    stopX -= resolveStrokeModifier(1) + dip2;
+                    startX = (1 - transformRatio) * (startX + dip8) + transformRatio * stopX;
+                } else {
+                    transformRatio = transformRatio(ratio, .7f, 1);
+                    startX += dip8;
+                    stopX = (1 - transformRatio) * (stopX - resolveStrokeModifier(1)) + transformRatio * startX;
+                }
+                break;
+        }
+
+        putSegment(BOTTOM_LINE, startX, startY, stopX, stopY, alpha, rotation, pivotX, pivotY, rotation2, pivotX2, pivotY2);
+    }
+
+
+    /**
+     * Store a line rotated around up to two pivots, second rotation applied first as with
+     * consecutive canvas rotations. Lines collapsed to a point are stored fully transparent.
+     */
+    private void putSegment(
+        int line, float startX, float startY, float stopX, float stopY, int alpha,
+        float rotation, float pivotX, float pivotY, float rotation2, float pivotX2, float pivotY2
+    ) {
+        final int offset = line * SEGMENT_STRIDE;
+
+        if (startX == stopX && startY == stopY) {
+            alpha = 0;
+        }
+
+        if (rotation2 != 0) {
+            final double radians = Math.toRadians(rotation2);
+            final float cos = (float) Math.cos(radians);
+            final float sin = (float) Math.sin(radians);
+            final float startDx = startX - pivotX2, startDy = startY - pivotY2;
+            final float stopDx = stopX - pivotX2, stopDy = stopY - pivotY2;
+            startX = pivotX2 + startDx * cos - startDy * sin;
+            startY = pivotY2 + startDx * sin + startDy * cos;
+            stopX = pivotX2 + stopDx * cos - stopDy * sin;
+            stopY = pivotY2 + stopDx * sin + stopDy * cos;
+        }
+
+        if (rotation != 0) {
+            final double radians = Math.toRadians(rotation);
+            final float cos = (float) Math.cos(radians);
+            final float sin = (float) Math.sin(radians);
+            final float startDx = startX - pivotX, startDy = startY - pivotY;
+            final float stopDx = stopX - pivotX, stopDy = stopY - pivotY;
+            startX = pivotX + startDx * cos - startDy * sin;
+            startY = pivotY + startDx * sin + startDy * cos;
+            stopX = pivotX + stopDx * cos - stopDy * sin;
+            stopY = pivotY + stopDx * sin + stopDy * cos;
+        }
+
+        segments[offset] = startX;
+        segments[offset + 1] = startY;
+        segments[offset + 2] = stopX;
+        segments[offset + 3] = stopY;
+        segments[offset + 4] = alpha;
+    }
+
+    private boolean isMorphingForward() {
+        return transformationValue <= TRANSFORMATION_MID;
+    }
+
+    private float resolveStrokeModifier(float ratio) {
+        switch (stroke) {
+            case BOLD:
+                if (animationState == AnimationState.ARROW_X || animationState == AnimationState.X_CHECK) {
+                    return dip3 - (dip3 * ratio);
+                }
+                return ratio * dip3;
+            case REGULAR:
+                if (animationState == AnimationState.ARROW_X || animationState == AnimationState.X_CHECK) {
+                    return dip3 + diph - (dip3 + diph) * ratio;
+                }
+                return ratio * (dip3 + diph);
+            case THIN:
+                if (animationState == AnimationState.ARROW_X || animationState == AnimationState.X_CHECK) {
+                    return dip4 - ((dip3 + dip1) * ratio);
+                }
+                return ratio * dip4;
+        }
+        return 0;
+    }
+
+    /**
+     * Translate ratio to specific start and end points
+     * @param ratio         current ratio
+     * @param startPoint    start point [0, 1)
+     * @param endPoint      end point (0, 1]
+     * @return Translated current ratio value depends on start and end points
+     */
+    private float transformRatio(float ratio, float startPoint, float endPoint) {
+        if (ratio <= startPoint) {
+            return 0;
+        } else if (ratio >= endPoint) {
+            return 1;
+        } else {
+            return (ratio - startPoint) / (endPoint - startPoint);
+        }
+    }
+
+    static float dpToPx(float density, float dp) {
+        return dp * density;
+    }
+}
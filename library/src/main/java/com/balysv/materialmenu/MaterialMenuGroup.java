@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.graphics.drawable.Drawable;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.AnimationState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.DEFAULT_TRANSFORM_DURATION;
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.TransformationListener;
+
+/**
+ * Drives any number of {@link MaterialMenu} instances from a single animation clock. Members
+ * receive the same transformation offset on every frame, and members sharing the same
+ * density, scale and stroke resolve their lines only once per frame.
+ * <p>
+ * Members should only be changed through the group while they are part of it. Once no member
+ * is visible anymore the group stops producing frames and members jump to the end state.
+ */
+public class MaterialMenuGroup implements MaterialMenu {
+
+    private static final float TRANSFORMATION_START = 0;
+    private static final float TRANSFORMATION_MID   = 1.0f;
+    private static final float TRANSFORMATION_END   = 2.0f;
+
+    private final List<MaterialMenu> members = new ArrayList<>();
+
+    private IconState      currentIconState = IconState.BURGER;
+    private IconState      animatingIconState;
+    private AnimationState animationState   = AnimationState.BURGER_ARROW;
+
+    private float transformationStart;
+    private float transformationEnd;
+
+    private ValueAnimator             transformation;
+    private int                       transformDuration;
+    private Interpolator              interpolator;
+    private Animator.AnimatorListener animatorListener;
+    private TransformationListener    transformationListener;
+
+    public MaterialMenuGroup() {
+        this(DEFAULT_TRANSFORM_DURATION);
+    }
+
+    public MaterialMenuGroup(int transformDuration) {
+        this.transformDuration = transformDuration;
+    }
+
+    /**
+     * Add a member to the group. The member is switched to the current icon state of the group
+     *
+     * @param menu menu to drive by this group
+     */
+    public void add(MaterialMenu menu) {
+        if (members.contains(menu)) return;
+
+        members.add(menu);
+        menu.setIconState(animatingIconState != null ? animatingIconState : currentIconState);
+    }
+
+    /**
+     * Remove a member from the group
+     *
+     * @param menu menu to remove
+     */
+    public void remove(MaterialMenu menu) {
+        members.remove(menu);
+    }
+
+    @Override public void setIconState(IconState state) {
+        animatingIconState = null;
+        if (isTransformationRunning()) {
+            transformation.cancel();
+        }
+
+        currentIconState = state;
+        for (int i = 0, size = members.size(); i < size; i++) {
+            members.get(i).setIconState(state);
+        }
+    }
+
+    @Override public IconState getIconState() {
+        return currentIconState;
+    }
+
+    @Override public void animateIconState(IconState state) {
+        if (isTransformationRunning()) {
+            transformation.end();
+        }
+
+        if (state == currentIconState) return;
+
+        if (!hasVisibleMember()) {
+            setIconState(state);
+            return;
+        }
+
+        animatingIconState = state;
+        animationState = MaterialMenuDrawable.resolveAnimationState(currentIconState, state);
+
+        final boolean direction = currentIconState == animationState.getFirstState();
+        transformationStart = direction ? TRANSFORMATION_START : TRANSFORMATION_MID;
+        transformationEnd = direction ? TRANSFORMATION_MID : TRANSFORMATION_END;
+        getTransformation().start();
+    }
+
+    @Override public void setColor(int color) {
+        for (int i = 0, size = members.size(); i < size; i++) {
+            members.get(i).setColor(color);
+        }
+    }
+
+    @Override public void setVisible(boolean visible) {
+        for (int i = 0, size = members.size(); i < size; i++) {
+            members.get(i).setVisible(visible);
+        }
+    }
+
+    @Override public void setTransformationDuration(int duration) {
+        transformDuration = duration;
+        if (transformation != null) {
+            transformation.setDuration(duration);
+        }
+    }
+
+    @Override public void setInterpolator(Interpolator interpolator) {
+        this.interpolator = interpolator;
+        if (transformation != null) {
+            transformation.setInterpolator(interpolator);
+        }
+    }
+
+    @Override public void setAnimationListener(Animator.AnimatorListener listener) {
+        if (transformation != null) {
+            if (animatorListener != null) {
+                transformation.removeListener(animatorListener);
+            }
+
+            if (listener != null) {
+                transformation.addListener(listener);
+            }
+        }
+
+        animatorListener = listener;
+    }
+
+    @Override public void setTransformationListener(TransformationListener listener) {
+        transformationListener = listener;
+    }
+
+    @Override public void setRTLEnabled(boolean rtlEnabled) {
+        for (int i = 0, size = members.size(); i < size; i++) {
+            members.get(i).setRTLEnabled(rtlEnabled);
+        }
+    }
+
+    @Override public IconState setTransformationOffset(AnimationState animationState, float value) {
+        this.animatingIconState = null;
+        if (isTransformationRunning()) {
+            transformation.cancel();
+        }
+
+        this.animationState = animationState;
+        applyTransformationOffset(value, false);
+        return currentIconState;
+    }
+
+    @Override public IconState scrubTransformationOffset(AnimationState animationState, float value) {
+        this.animatingIconState = null;
+        if (isTransformationRunning()) {
+            transformation.cancel();
+        }
+
+        this.animationState = animationState;
+        applyTransformationOffset(value, true);
+        return currentIconState;
+    }
+
+    private void applyTransformationOffset(float value, boolean scrub) {
+        // clamp in case the interpolator overshoots
+        value = Math.max(TRANSFORMATION_START, Math.min(TRANSFORMATION_END, value));
+
+        final boolean isFirstIcon = value < TRANSFORMATION_MID || value == TRANSFORMATION_END;
+        currentIconState = isFirstIcon ? animationState.getFirstState() : animationState.getSecondState();
+
+        for (int i = 0, size = members.size(); i < size; i++) {
+            if (scrub) {
+                members.get(i).scrubTransformationOffset(animationState, value);
+            } else {
+                members.get(i).setTransformationOffset(animationState, value);
+            }
+        }
+
+        if (transformationListener != null) {
+            final float fraction = value <= TRANSFORMATION_MID ? value : TRANSFORMATION_END - value;
+            transformationListener.onTransformation(animationState, value, fraction);
+        }
+    }
+
+    /**
+     * Return true if any member may be on screen. Members that are neither drawables nor
+     * views, i.e. nested groups, are assumed to be visible.
+     */
+    private boolean hasVisibleMember() {
+        for (int i = 0, size = members.size(); i < size; i++) {
+            final MaterialMenu member = members.get(i);
+            if (member instanceof Drawable) {
+                if (((Drawable) member).isVisible()) return true;
+            } else if (member instanceof MaterialMenuView) {
+                if (((MaterialMenuView) member).getDrawable().isVisible()) return true;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isTransformationRunning() {
+        return transformation != null && transformation.isRunning();
+    }
+
+    /**
+     * Created on the first transformation, so groups can be set up on any thread
+     */
+    private ValueAnimator getTransformation() {
+        if (transformation == null) {
+            transformation = ValueAnimator.ofFloat(0, 1);
+            transformation.setInterpolator(interpolator != null ? interpolator : new DecelerateInterpolator(3));
+            transformation.setDuration(transformDuration);
+            transformation.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override public void onAnimationUpdate(ValueAnimator animation) {
+                    if (!hasVisibleMember()) {
+                        // the end listener lands the members on the target state
+                        animation.cancel();
+                        return;
+                    }
+
+                    // interpolated fraction avoids boxing the animated value
+                    final float fraction = animation.getAnimatedFraction();
+                    applyTransformationOffset(transformationStart + (transformationEnd - transformationStart) * fraction, false);
+                }
+            });
+            transformation.addListener(new AnimatorListenerAdapter() {
+                @Override public void onAnimationEnd(Animator animation) {
+                    if (animatingIconState != null) {
+                        setIconState(animatingIconState);
+                    }
+                }
+            });
+            if (animatorListener != null) {
+                transformation.addListener(animatorListener);
+            }
+        }
+        return transformation;
+    }
+}
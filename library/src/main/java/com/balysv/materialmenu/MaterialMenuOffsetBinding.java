@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import android.os.SystemClock;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.AnimationState;
+
+/**
+ * Binds a {@link MaterialMenu} to a gesture offset source such as a navigation drawer slide,
+ * a pager scroll or a scroll container position. Offsets between 0 (first icon of the
+ * {@link AnimationState}) and 1 (second icon) are mapped to transformation values, including
+ * the backwards transformation once the second icon has been reached. Offsets that do not
+ * change the icon are dropped and the rest are scrubbed through
+ * {@link MaterialMenu#scrubTransformationOffset(AnimationState, float)}, so that the icon
+ * invalidates at most once per frame.
+ * <p>
+ * Navigation drawer usage:
+ * <pre>
+ * final MaterialMenuOffsetBinding binding = new MaterialMenuOffsetBinding(materialMenu, AnimationState.BURGER_ARROW);
+ * drawerLayout.addDrawerListener(new DrawerLayout.SimpleDrawerListener() {
+ *     public void onDrawerSlide(View drawerView, float slideOffset) {
+ *         binding.setOffset(slideOffset);
+ *     }
+ * });
+ * </pre>
+ */
+public class MaterialMenuOffsetBinding {
+
+    /**
+     * Smallest offset change that is forwarded to the icon
+     */
+    private static final float OFFSET_EPSILON = 0.001f;
+
+    private final MaterialMenu   menu;
+    private final AnimationState animationState;
+
+    private float   offset = Float.NaN;
+    private boolean reversed;
+    private long    offsetTime;
+    private float   velocity;
+
+    public MaterialMenuOffsetBinding(MaterialMenu menu, AnimationState animationState) {
+        this.menu = menu;
+        this.animationState = animationState;
+    }
+
+    /**
+     * Set the offset of the source
+     *
+     * @param offset between 0 (first icon) and 1 (second icon), clamped, NaN is ignored
+     */
+    public void setOffset(float offset) {
+        if (Float.isNaN(offset)) return;
+
+        if (offset <= 0) {
+            offset = 0;
+        } else if (offset >= 1) {
+            offset = 1;
+        }
+
+        // always land exactly on both ends
+        if (offset != 0 && offset != 1 && Math.abs(offset - this.offset) < OFFSET_EPSILON) return;
+        if (offset == this.offset) return;
+
+        final long now = SystemClock.uptimeMillis();
+        if (!Float.isNaN(this.offset) && now > offsetTime) {
+            velocity = (offset - this.offset) * 1000f / (now - offsetTime);
+        }
+        offsetTime = now;
+
+        this.offset = offset;
+        menu.scrubTransformationOffset(animationState, reversed ? 2 - offset : offset);
+
+        // once an end is reached the next transformation starts from it
+        if (offset == 0) {
+            reversed = false;
+        } else if (offset == 1) {
+            reversed = true;
+        }
+    }
+
+    /**
+     * Set the offset from a pager, i.e. from {@code ViewPager.OnPageChangeListener.onPageScrolled}.
+     * Pages up to {@code fromPage} show the first icon and pages after it the second one
+     *
+     * @param position       position of the first visible page
+     * @param positionOffset offset of the first visible page
+     * @param fromPage       page to transform from
+     */
+    public void setPageOffset(int position, float positionOffset, int fromPage) {
+        setOffset(position - fromPage + positionOffset);
+    }
+
+    /**
+     * Set the offset from a scroll position, i.e. of a {@code RecyclerView} or a
+     * {@code NestedScrollView}
+     *
+     * @param scroll current scroll position
+     * @param range  scroll distance over which the icon transforms
+     */
+    public void setScrollOffset(int scroll, int range) {
+        setOffset(range > 0 ? (float) scroll / range : 0);
+    }
+
+    /**
+     * Return the velocity of the source estimated from the last two offsets, i.e. to hand a
+     * fling over to {@link MaterialMenuDrawable#springIconState(MaterialMenuDrawable.IconState, float)}
+     *
+     * @return velocity in offsets per second, positive towards the second icon
+     */
+    public float getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * Set whether the source currently rests at the second icon, i.e. when the navigation
+     * drawer is already opened while the binding is created
+     *
+     * @param reversed true if the next offsets transform back to the first icon
+     */
+    public void setReversed(boolean reversed) {
+        this.reversed = reversed;
+        this.offset = reversed ? 1 : 0;
+        this.velocity = 0;
+    }
+}
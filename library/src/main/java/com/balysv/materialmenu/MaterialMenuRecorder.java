@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import android.animation.Animator;
+import android.os.SystemClock;
+import android.view.animation.Interpolator;
+
+import java.util.Arrays;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.AnimationState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.TransformationListener;
+import static com.balysv.materialmenu.MaterialMenuTrace.ANIMATE_ICON_STATE;
+import static com.balysv.materialmenu.MaterialMenuTrace.SCRUB_TRANSFORMATION_OFFSET;
+import static com.balysv.materialmenu.MaterialMenuTrace.SET_COLOR;
+import static com.balysv.materialmenu.MaterialMenuTrace.SET_ICON_STATE;
+import static com.balysv.materialmenu.MaterialMenuTrace.SET_RTL_ENABLED;
+import static com.balysv.materialmenu.MaterialMenuTrace.SET_TRANSFORMATION_DURATION;
+import static com.balysv.materialmenu.MaterialMenuTrace.SET_TRANSFORMATION_OFFSET;
+import static com.balysv.materialmenu.MaterialMenuTrace.SET_VISIBLE;
+
+/**
+ * Records every state changing call made to a {@link MaterialMenu} while forwarding it, so
+ * that real gestures can be replayed later from a {@link MaterialMenuTrace}. Listeners and
+ * interpolators are forwarded but not recorded.
+ * <p>
+ * Usage:
+ * <pre>
+ * MaterialMenuRecorder recorder = new MaterialMenuRecorder(materialMenu);
+ * MaterialMenuOffsetBinding binding = new MaterialMenuOffsetBinding(recorder, AnimationState.BURGER_ARROW);
+ * ...
+ * recorder.getTrace().writeTo(out);
+ * </pre>
+ */
+public class MaterialMenuRecorder implements MaterialMenu {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final MaterialMenu menu;
+
+    private long   startTime = -1;
+    private int    size;
+    private int[]  times    = new int[INITIAL_CAPACITY];
+    private byte[] types    = new byte[INITIAL_CAPACITY];
+    private byte[] states   = new byte[INITIAL_CAPACITY];
+    private int[]  payloads = new int[INITIAL_CAPACITY];
+
+    /**
+     * @param menu menu to forward all calls to
+     */
+    public MaterialMenuRecorder(MaterialMenu menu) {
+        this.menu = menu;
+    }
+
+    /**
+     * Return a trace of all calls recorded so far
+     */
+    public MaterialMenuTrace getTrace() {
+        return new MaterialMenuTrace(
+            size,
+            Arrays.copyOf(times, size),
+            Arrays.copyOf(types, size),
+            Arrays.copyOf(states, size),
+            Arrays.copyOf(payloads, size)
+        );
+    }
+
+    /**
+     * Drop all recorded calls, the next call starts a new trace at time 0
+     */
+    public void clear() {
+        size = 0;
+        startTime = -1;
+    }
+
+    @Override public void setIconState(IconState state) {
+        record(SET_ICON_STATE, state.ordinal(), 0);
+        menu.setIconState(state);
+    }
+
+    @Override public IconState getIconState() {
+        return menu.getIconState();
+    }
+
+    @Override public void animateIconState(IconState state) {
+        record(ANIMATE_ICON_STATE, state.ordinal(), 0);
+        menu.animateIconState(state);
+    }
+
+    @Override public void setColor(int color) {
+        record(SET_COLOR, 0, color);
+        menu.setColor(color);
+    }
+
+    @Override public void setVisible(boolean visible) {
+        record(SET_VISIBLE, visible ? 1 : 0, 0);
+        menu.setVisible(visible);
+    }
+
+    @Override public void setTransformationDuration(int duration) {
+        record(SET_TRANSFORMATION_DURATION, 0, duration);
+        menu.setTransformationDuration(duration);
+    }
+
+    @Override public void setInterpolator(Interpolator interpolator) {
+        menu.setInterpolator(interpolator);
+    }
+
+    @Override public void setAnimationListener(Animator.AnimatorListener listener) {
+        menu.setAnimationListener(listener);
+    }
+
+    @Override public void setTransformationListener(TransformationListener listener) {
+        menu.setTransformationListener(listener);
+    }
+
+    @Override public void setRTLEnabled(boolean rtlEnabled) {
+        record(SET_RTL_ENABLED, rtlEnabled ? 1 : 0, 0);
+        menu.setRTLEnabled(rtlEnabled);
+    }
+
+    @Override public IconState setTransformationOffset(AnimationState animationState, float value) {
+        record(SET_TRANSFORMATION_OFFSET, animationState.ordinal(), Float.floatToIntBits(value));
+        return menu.setTransformationOffset(animationState, value);
+    }
+
+    @Override public IconState scrubTransformationOffset(AnimationState animationState, float value) {
+        record(SCRUB_TRANSFORMATION_OFFSET, animationState.ordinal(), Float.floatToIntBits(value));
+        return menu.scrubTransformationOffset(animationState, value);
+    }
+
+    private void record(int type, int state, int payload) {
+        final long now = SystemClock.uptimeMillis();
+        if (startTime < 0) {
+            startTime = now;
+        }
+
+        if (size == times.length) {
+            final int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            types = Arrays.copyOf(types, capacity);
+            states = Arrays.copyOf(states, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+        }
+
+        times[size] = (int) (now - startTime);
+        types[size] = (byte) type;
+        states[size] = (byte) state;
+        payloads[size] = payload;
+        size++;
+    }
+}
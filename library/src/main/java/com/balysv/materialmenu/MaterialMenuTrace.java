@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.AnimationState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+
+/**
+ * Timestamped stream of {@link MaterialMenu} calls captured by a {@link MaterialMenuRecorder}.
+ * Replaying a trace against a menu driven by a {@link ManualAnimationClock} reproduces a real
+ * gesture, i.e. a navigation drawer slide, frame by frame and without any timing noise.
+ * <p>
+ * Replay usage:
+ * <pre>
+ * drawable.setAnimationClock(clock);
+ * int next = 0;
+ * for (long time = 0; time &lt;= trace.getDuration(); time += 16) {
+ *     next = trace.replay(drawable, next, time);
+ *     clock.advance(16);
+ *     drawable.draw(canvas);
+ * }
+ * </pre>
+ * Binary format, little endian:
+ * <pre>
+ * int     magic      'MMTR'
+ * int     version    1
+ * int     eventCount
+ * event[] events     int time in ms since the first event, byte type, byte state, int payload
+ * </pre>
+ */
+public final class MaterialMenuTrace {
+
+    private static final int MAGIC       = 0x52544D4D; // 'MMTR' read as little endian
+    private static final int VERSION     = 1;
+    private static final int HEADER_SIZE = 3 * 4;
+    private static final int EVENT_SIZE  = 4 + 1 + 1 + 4;
+
+    /**
+     * Event types, the state byte holds an ordinal or a boolean and the payload an int or
+     * the bits of a float
+     */
+    static final int SET_ICON_STATE              = 0;
+    static final int ANIMATE_ICON_STATE          = 1;
+    static final int SET_TRANSFORMATION_OFFSET   = 2;
+    static final int SCRUB_TRANSFORMATION_OFFSET = 3;
+    static final int SET_VISIBLE                 = 4;
+    static final int SET_COLOR                   = 5;
+    static final int SET_TRANSFORMATION_DURATION = 6;
+    static final int SET_RTL_ENABLED             = 7;
+
+    private static final IconState[]      ICON_STATES      = IconState.values();
+    private static final AnimationState[] ANIMATION_STATES = AnimationState.values();
+
+    private final int    size;
+    private final int[]  times;
+    private final byte[] types;
+    private final byte[] states;
+    private final int[]  payloads;
+
+    MaterialMenuTrace(int size, int[] times, byte[] types, byte[] states, int[] payloads) {
+        this.size = size;
+        this.times = times;
+        this.types = types;
+        this.states = states;
+        this.payloads = payloads;
+    }
+
+    /**
+     * Read a trace in the binary format
+     *
+     * @param in stream to read from, not closed
+     * @return trace
+     * @throws IOException if reading fails or the stream does not contain a valid trace
+     */
+    public static MaterialMenuTrace read(InputStream in) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] chunk = new byte[4096];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            bytes.write(chunk, 0, read);
+        }
+        return read(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * Read a trace in the binary format
+     *
+     * @param buffer buffer positioned at the start of the trace
+     * @return trace
+     * @throws IOException if the buffer does not contain a valid trace
+     */
+    public static MaterialMenuTrace read(ByteBuffer buffer) throws IOException {
+        final ByteBuffer data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC) {
+            throw new IOException("Not a menu trace");
+        }
+
+        final int version = data.getInt();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported menu trace version %s", version));
+        }
+
+        final int size = data.getInt();
+        if (size < 0 || data.remaining() < (long) size * EVENT_SIZE) {
+            throw new IOException("Truncated menu trace");
+        }
+
+        final int[] times = new int[size];
+        final byte[] types = new byte[size];
+        final byte[] states = new byte[size];
+        final int[] payloads = new int[size];
+        for (int i = 0; i < size; i++) {
+            times[i] = data.getInt();
+            types[i] = data.get();
+            states[i] = data.get();
+            payloads[i] = data.getInt();
+            checkEvent(types[i], states[i]);
+        }
+
+        return new MaterialMenuTrace(size, times, types, states, payloads);
+    }
+
+    private static void checkEvent(int type, int state) throws IOException {
+        final int stateCount;
+        switch (type) {
+            case SET_ICON_STATE:
+            case ANIMATE_ICON_STATE:
+                stateCount = ICON_STATES.length;
+                break;
+            case SET_TRANSFORMATION_OFFSET:
+            case SCRUB_TRANSFORMATION_OFFSET:
+                stateCount = ANIMATION_STATES.length;
+                break;
+            case SET_VISIBLE:
+            case SET_RTL_ENABLED:
+                stateCount = 2;
+                break;
+            case SET_COLOR:
+            case SET_TRANSFORMATION_DURATION:
+                return;
+            default:
+                throw new IOException(String.format("Unknown menu trace event type %s", type));
+        }
+
+        if (state < 0 || state >= stateCount) {
+            throw new IOException(String.format("Invalid state %s for menu trace event type %s", state, type));
+        }
+    }
+
+    /**
+     * Write the trace in the binary format
+     *
+     * @param out stream to write to, not closed
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        final ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE + size * EVENT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(MAGIC).putInt(VERSION).putInt(size);
+        for (int i = 0; i < size; i++) {
+            data.putInt(times[i]).put(types[i]).put(states[i]).putInt(payloads[i]);
+        }
+        out.write(data.array());
+    }
+
+    /**
+     * Return the number of recorded calls
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the time of the last call in milliseconds since the first one
+     */
+    public long getDuration() {
+        return size > 0 ? times[size - 1] : 0;
+    }
+
+    /**
+     * Apply all calls up to the given time to a menu
+     *
+     * @param menu       menu to apply calls to
+     * @param fromEvent  index of the first call to apply, 0 or the result of the previous call
+     * @param untilTime  time in milliseconds since the first call, inclusive
+     * @return index of the first call that was not applied yet
+     */
+    public int replay(MaterialMenu menu, int fromEvent, long untilTime) {
+        int event = fromEvent;
+        while (event < size && times[event] <= untilTime) {
+            apply(menu, event++);
+        }
+        return event;
+    }
+
+    private void apply(MaterialMenu menu, int event) {
+        final int state = states[event];
+        final int payload = payloads[event];
+        switch (types[event]) {
+            case SET_ICON_STATE:
+                menu.setIconState(ICON_STATES[state]);
+                break;
+            case ANIMATE_ICON_STATE:
+                menu.animateIconState(ICON_STATES[state]);
+                break;
+            case SET_TRANSFORMATION_OFFSET:
+                menu.setTransformationOffset(ANIMATION_STATES[state], Float.intBitsToFloat(payload));
+                break;
+            case SCRUB_TRANSFORMATION_OFFSET:
+                menu.scrubTransformationOffset(ANIMATION_STATES[state], Float.intBitsToFloat(payload));
+                break;
+            case SET_VISIBLE:
+                menu.setVisible(state != 0);
+                break;
+            case SET_COLOR:
+                menu.setColor(payload);
+                break;
+            case SET_TRANSFORMATION_DURATION:
+                menu.setTransformationDuration(payload);
+                break;
+            case SET_RTL_ENABLED:
+                menu.setRTLEnabled(state != 0);
+                break;
+        }
+    }
+}
@@ -17,10 +17,15 @@
 package com.balysv.materialmenu;
 
 import android.animation.Animator;
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.drawable.Drawable;
+import android.graphics.drawable.RippleDrawable;
 import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
@@ -28,6 +33,10 @@ import android.util.AttributeSet;
 import android.view.View;
 import android.view.animation.Interpolator;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import static com.balysv.materialmenu.MaterialMenuDrawable.DEFAULT_COLOR;
 import static com.balysv.materialmenu.MaterialMenuDrawable.DEFAULT_SCALE;
 import static com.balysv.materialmenu.MaterialMenuDrawable.DEFAULT_TRANSFORM_DURATION;
@@ -38,10 +47,23 @@ import static com.balysv.materialmenu.MaterialMenuDrawable.Stroke;
 /**
  * A basic View wrapper of {@link MaterialMenuDrawable}. Used
  * for custom view ActionBar or other layouts
+ * <p>
+ * Default attributes are taken from the style in the {@code materialMenuViewStyle} theme
+ * attribute. Resolved attributes are cached per theme and configuration, so views inflated
+ * repeatedly from the same layout, i.e. list rows, clone a prepared drawable instead of
+ * resolving attributes again. Themes changed with {@code applyStyle} after a view was inflated
+ * are not picked up.
+ * <p>
+ * Views can be constructed on any thread, i.e. by an asynchronous layout inflater, animators
+ * are only created once the icon first transforms.
  */
 public class MaterialMenuView extends View implements MaterialMenu {
 
+    // held weakly by theme, so cached entries go away with their activity
+    private static final Map<Resources.Theme, Map<String, InflatedState>> INFLATED_STATES = new WeakHashMap<>();
+
     private MaterialMenuDrawable drawable;
+    private RippleDrawable       pressedCircle;
 
     private IconState currentState = IconState.BURGER;
 
@@ -50,16 +72,77 @@ public class MaterialMenuView extends View implements MaterialMenu {
     }
 
     public MaterialMenuView(Context context, AttributeSet attrs) {
-        this(context, attrs, 0);
+        this(context, attrs, R.attr.materialMenuViewStyle);
     }
 
     public MaterialMenuView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        init(context, attrs);
+        init(context, attrs, defStyleAttr);
+    }
+
+    private void init(Context context, AttributeSet attributeSet, int defStyleAttr) {
+        final InflatedState state = getInflatedState(context, attributeSet, defStyleAttr);
+
+        currentState = state.iconState;
+        drawable = (MaterialMenuDrawable) state.drawableState.newDrawable().mutate();
+        drawable.setCallback(this);
+
+        setPressedCircleEnabled(state.pressedCircleEnabled);
     }
 
-    private void init(Context context, AttributeSet attributeSet) {
-        TypedArray attr = getTypedArray(context, attributeSet, com.balysv.materialmenu.R.styleable.MaterialMenuView);
+    private static InflatedState getInflatedState(Context context, AttributeSet attributeSet, int defStyleAttr) {
+        final Resources.Theme theme = context.getTheme();
+        final String key = getInflationKey(context.getResources(), attributeSet, defStyleAttr);
+
+        synchronized (INFLATED_STATES) {
+            final Map<String, InflatedState> states = INFLATED_STATES.get(theme);
+            final InflatedState state = states != null ? states.get(key) : null;
+            if (state != null) return state;
+        }
+
+        // resolved outside the lock, racing inflations resolve the same values
+        final InflatedState state = resolveInflatedState(context, attributeSet, defStyleAttr);
+
+        synchronized (INFLATED_STATES) {
+            Map<String, InflatedState> states = INFLATED_STATES.get(theme);
+            if (states == null) {
+                states = new HashMap<>();
+                INFLATED_STATES.put(theme, states);
+            }
+            states.put(key, state);
+        }
+        return state;
+    }
+
+    /**
+     * Identify everything besides the theme that attributes are resolved from: the parts of the
+     * configuration that activities handling configuration changes keep their theme across,
+     * the default style, the style set in the layout and the raw values of our own layout attributes
+     */
+    private static String getInflationKey(Resources resources, AttributeSet attributeSet, int defStyleAttr) {
+        final Configuration configuration = resources.getConfiguration();
+        final StringBuilder key = new StringBuilder()
+            .append(configuration.uiMode).append('/')
+            .append(resources.getDisplayMetrics().densityDpi).append('/')
+            .append(configuration.fontScale).append('/')
+            .append(defStyleAttr);
+        if (attributeSet == null) return key.toString();
+
+        key.append('/').append(attributeSet.getStyleAttribute());
+        for (int i = 0, count = attributeSet.getAttributeCount(); i < count; i++) {
+            final int name = attributeSet.getAttributeNameResource(i);
+            for (int attr : R.styleable.MaterialMenuView) {
+                if (attr == name) {
+                    key.append('/').append(name).append('=').append(attributeSet.getAttributeValue(i));
+                    break;
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    private static InflatedState resolveInflatedState(Context context, AttributeSet attributeSet, int defStyleAttr) {
+        TypedArray attr = getTypedArray(context, attributeSet, R.styleable.MaterialMenuView, defStyleAttr);
 
         try {
             int color = attr.getColor(R.styleable.MaterialMenuView_mm_color, DEFAULT_COLOR);
@@ -69,36 +152,45 @@ public class MaterialMenuView extends View implements MaterialMenu {
             Stroke stroke = Stroke.valueOf(attr.getInteger(R.styleable.MaterialMenuView_mm_strokeWidth, 0));
             boolean rtlEnabled = attr.getBoolean(R.styleable.MaterialMenuView_mm_rtlEnabled, false);
             int state = attr.getInt(R.styleable.MaterialMenuView_mm_iconState, 0);
+            boolean pressedCircleEnabled = attr.getBoolean(R.styleable.MaterialMenuView_mm_pressedCircle, false);
 
+            IconState iconState;
             switch (state) {
                 case 0:
-                    currentState = IconState.BURGER;
+                default:
+                    iconState = IconState.BURGER;
                     break;
                 case 1:
-                    currentState = IconState.ARROW;
+                    iconState = IconState.ARROW;
                     break;
                 case 2:
-                    currentState = IconState.X;
+                    iconState = IconState.X;
                     break;
                 case 3:
-                    currentState = IconState.CHECK;
+                    iconState = IconState.CHECK;
+                    break;
+                case 4:
+                    iconState = IconState.HIDE;
                     break;
             }
 
-            drawable = new MaterialMenuDrawable(context, color, stroke, scale, transformDuration);
+            MaterialMenuDrawable drawable = new MaterialMenuDrawable(context, color, stroke, scale, transformDuration);
 
-            drawable.setIconState(currentState);
+            drawable.setIconState(iconState);
             drawable.setVisible(visible);
             drawable.setRTLEnabled(rtlEnabled);
+
+            return new InflatedState(drawable.getConstantState(), iconState, pressedCircleEnabled);
         } finally {
             attr.recycle();
         }
-
-        drawable.setCallback(this);
     }
 
     @Override public void draw(Canvas canvas) {
         super.draw(canvas);
+        if (pressedCircle != null) {
+            pressedCircle.draw(canvas);
+        }
         if (getPaddingLeft() != 0 || getPaddingTop() != 0) {
             int saveCount = canvas.getSaveCount();
             canvas.save();
@@ -110,13 +202,92 @@ public class MaterialMenuView extends View implements MaterialMenu {
         }
     }
 
+    @Override protected boolean onSetAlpha(int alpha) {
+        // fade the icon lines directly instead of through an offscreen layer,
+        // unless there is a background that has to fade as well
+        if (getBackground() != null) return false;
+
+        drawable.setAlpha(alpha);
+        if (pressedCircle != null) {
+            pressedCircle.setAlpha(alpha);
+        }
+        return true;
+    }
+
     @Override public void setPadding(int left, int top, int right, int bottom) {
         super.setPadding(left, top, right, bottom);
         adjustDrawablePadding();
     }
 
     @Override protected boolean verifyDrawable(Drawable who) {
-        return who == drawable || super.verifyDrawable(who);
+        return who == drawable || who == pressedCircle || super.verifyDrawable(who);
+    }
+
+    @Override protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        if (drawable != null && drawable.isStateful()) {
+            drawable.setState(getDrawableState());
+        }
+        if (pressedCircle != null) {
+            pressedCircle.setState(getDrawableState());
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override public void drawableHotspotChanged(float x, float y) {
+        super.drawableHotspotChanged(x, y);
+        if (pressedCircle != null) {
+            pressedCircle.setHotspot(x, y);
+        }
+    }
+
+    @Override public void jumpToCurrentState() {
+        super.jumpToCurrentState();
+        if (drawable != null) {
+            drawable.jumpToCurrentState();
+        }
+        if (pressedCircle != null) {
+            pressedCircle.jumpToCurrentState();
+        }
+    }
+
+    /**
+     * Show a circle below the icon while the view is pressed or focused. On Lollipop and above
+     * the circle is a borderless ripple drawn by this view between its background and the icon,
+     * so its expand and fade animations run on the render thread. The background is left as set.
+     * On older platforms the drawable draws the circle.
+     *
+     * @param enabled true to show the pressed circle
+     */
+    public void setPressedCircleEnabled(boolean enabled) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            setPressedCircleRipple(enabled);
+        } else {
+            drawable.setPressedCircleEnabled(enabled);
+            refreshDrawableState();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void setPressedCircleRipple(boolean enabled) {
+        if (enabled == (pressedCircle != null)) return;
+
+        if (enabled) {
+            // no content and no mask, the ripple is borderless
+            final int circleColor = MaterialMenuDrawable.getCircleColor(drawable.getColor());
+            pressedCircle = new RippleDrawable(ColorStateList.valueOf(circleColor), null, null);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                pressedCircle.setRadius((int) drawable.getGeometry().circleRadius);
+            }
+            pressedCircle.setCallback(this);
+            pressedCircle.setState(getDrawableState());
+            pressedCircle.setVisible(drawable.isVisible(), false);
+            adjustDrawablePadding();
+        } else {
+            pressedCircle.setCallback(null);
+            pressedCircle = null;
+        }
+        invalidate();
     }
 
     @Override public void setIconState(IconState state) {
@@ -133,8 +304,33 @@ public class MaterialMenuView extends View implements MaterialMenu {
         drawable.animateIconState(state);
     }
 
+    /**
+     * @see MaterialMenuDrawable#animateIconState(IconState, int)
+     */
+    public void animateIconState(IconState state, int color) {
+        currentState = state;
+        drawable.animateIconState(state, color);
+        updatePressedCircleColor(MaterialMenuDrawable.getCircleColor(color));
+    }
+
+    /**
+     * @see MaterialMenuDrawable#springIconState(IconState, float)
+     */
+    public void springIconState(IconState state, float velocity) {
+        currentState = state;
+        drawable.springIconState(state, velocity);
+    }
+
     @Override public void setColor(int color) {
         drawable.setColor(color);
+        updatePressedCircleColor(MaterialMenuDrawable.getCircleColor(color));
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void updatePressedCircleColor(int circleColor) {
+        if (pressedCircle != null) {
+            pressedCircle.setColor(ColorStateList.valueOf(circleColor));
+        }
     }
 
     @Override public void setVisible(boolean visible) {
@@ -153,6 +349,10 @@ public class MaterialMenuView extends View implements MaterialMenu {
         drawable.setAnimationListener(listener);
     }
 
+    @Override public void setTransformationListener(MaterialMenuDrawable.TransformationListener listener) {
+        drawable.setTransformationListener(listener);
+    }
+
     @Override public void setRTLEnabled(boolean rtlEnabled) {
         drawable.setRTLEnabled(rtlEnabled);
     }
@@ -162,10 +362,64 @@ public class MaterialMenuView extends View implements MaterialMenu {
         return currentState;
     }
 
+    @Override public IconState scrubTransformationOffset(MaterialMenuDrawable.AnimationState animationState, float value) {
+        currentState = drawable.scrubTransformationOffset(animationState, value);
+        return currentState;
+    }
+
     public MaterialMenuDrawable getDrawable() {
         return drawable;
     }
 
+    @Override protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateDrawableVisibility();
+    }
+
+    @Override protected void onDetachedFromWindow() {
+        // settle any running transformation, nothing will be drawn until re-attached
+        drawable.stop();
+        drawable.setVisible(false, false);
+        if (pressedCircle != null) {
+            pressedCircle.setVisible(false, false);
+        }
+        super.onDetachedFromWindow();
+    }
+
+    @Override protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateDrawableVisibility();
+    }
+
+    @Override protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateDrawableVisibility();
+    }
+
+    private void updateDrawableVisibility() {
+        final boolean visible = isShown() && getWindowVisibility() == VISIBLE;
+        if (drawable != null) {
+            drawable.setVisible(visible, false);
+        }
+        if (pressedCircle != null) {
+            pressedCircle.setVisible(visible, false);
+        }
+    }
+
+    @Override public void onRtlPropertiesChanged(int layoutDirection) {
+        super.onRtlPropertiesChanged(layoutDirection);
+        if (drawable != null) {
+            drawable.setLayoutRtl(layoutDirection == LAYOUT_DIRECTION_RTL);
+        }
+    }
+
+    /**
+     * @see MaterialMenuDrawable#setAutoMirrored(boolean)
+     */
+    public void setAutoMirrored(boolean autoMirrored) {
+        drawable.setAutoMirrored(autoMirrored);
+    }
+
     @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         int paddingX = getPaddingLeft() + getPaddingRight();
         int paddingY = getPaddingTop() + getPaddingBottom();
@@ -207,10 +461,32 @@ public class MaterialMenuView extends View implements MaterialMenu {
                 drawable.getIntrinsicHeight() + getPaddingTop() + getPaddingBottom()
             );
         }
+        if (pressedCircle != null) {
+            // centered on the icon, which is drawn translated by the padding
+            pressedCircle.setBounds(
+                getPaddingLeft(), getPaddingTop(),
+                getPaddingLeft() + drawable.getIntrinsicWidth(), getPaddingTop() + drawable.getIntrinsicHeight()
+            );
+        }
     }
 
-    private TypedArray getTypedArray(Context context, AttributeSet attributeSet, int[] attr) {
-        return context.obtainStyledAttributes(attributeSet, attr, 0, 0);
+    private static TypedArray getTypedArray(Context context, AttributeSet attributeSet, int[] attr, int defStyleAttr) {
+        return context.obtainStyledAttributes(attributeSet, attr, defStyleAttr, R.style.Widget_MaterialMenuView);
+    }
+
+    /**
+     * Attributes resolved for one theme and layout, kept as the state of a configured drawable
+     */
+    private static final class InflatedState {
+        private final Drawable.ConstantState drawableState;
+        private final IconState              iconState;
+        private final boolean                pressedCircleEnabled;
+
+        private InflatedState(Drawable.ConstantState drawableState, IconState iconState, boolean pressedCircleEnabled) {
+            this.drawableState = drawableState;
+            this.iconState = iconState;
+            this.pressedCircleEnabled = pressedCircleEnabled;
+        }
     }
 
     private static class SavedState extends BaseSavedState {
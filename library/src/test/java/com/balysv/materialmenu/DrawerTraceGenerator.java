@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.AnimationState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+
+/**
+ * Generates the synthetic drawer trace bundled with the demo, {@code res/raw/drawer_trace.mmtr}.
+ * It is not recorded from a device. Offsets are scrubbed every 8 ms along eased curves that
+ * approximate a drawer:
+ * <ul>
+ * <li>dragged open over 320 ms, decelerating</li>
+ * <li>dragged closed over 280 ms, easing in and out</li>
+ * <li>three taps animating to ARROW, X and back to BURGER, one second apart</li>
+ * <li>dragged to 45% over 160 ms, held and released back to closed at a constant speed</li>
+ * </ul>
+ * Regenerate with the library test classpath:
+ * <pre>
+ * java com.balysv.materialmenu.DrawerTraceGenerator demo/src/main/res/raw/drawer_trace.mmtr
+ * </pre>
+ */
+public final class DrawerTraceGenerator {
+
+    private static final int FRAME_INTERVAL = 8;
+
+    private int    size;
+    private int[]  times    = new int[64];
+    private byte[] types    = new byte[64];
+    private byte[] states   = new byte[64];
+    private int[]  payloads = new int[64];
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: DrawerTraceGenerator <output file>");
+        }
+
+        final OutputStream out = new FileOutputStream(args[0]);
+        try {
+            generate().writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    static MaterialMenuTrace generate() {
+        final DrawerTraceGenerator generator = new DrawerTraceGenerator();
+
+        // drag open, decelerating towards the end
+        for (int i = 0; i <= 40; i++) {
+            final double x = i / 40.0;
+            generator.scrub(i * FRAME_INTERVAL, 1 - (1 - x) * (1 - x));
+        }
+
+        // drag closed, reported as the backwards transformation
+        for (int i = 0; i <= 35; i++) {
+            final double x = i / 35.0;
+            generator.scrub(1200 + i * FRAME_INTERVAL, 1 + x * x * (3 - 2 * x));
+        }
+
+        generator.animate(2200, IconState.ARROW);
+        generator.animate(3200, IconState.X);
+        generator.animate(4200, IconState.BURGER);
+
+        // drag halfway, hold, release
+        for (int i = 0; i <= 20; i++) {
+            generator.scrub(5200 + i * FRAME_INTERVAL, 0.45 * Math.sin(Math.PI / 2 * i / 20));
+        }
+        generator.scrub(5368, 0.45);
+        for (int i = 1; i <= 15; i++) {
+            generator.scrub(5368 + i * FRAME_INTERVAL, 0.03 * (15 - i));
+        }
+
+        return new MaterialMenuTrace(
+            generator.size,
+            Arrays.copyOf(generator.times, generator.size),
+            Arrays.copyOf(generator.types, generator.size),
+            Arrays.copyOf(generator.states, generator.size),
+            Arrays.copyOf(generator.payloads, generator.size)
+        );
+    }
+
+    private void scrub(int time, double offset) {
+        add(time, MaterialMenuTrace.SCRUB_TRANSFORMATION_OFFSET, AnimationState.BURGER_ARROW.ordinal(),
+            Float.floatToIntBits((float) offset));
+    }
+
+    private void animate(int time, IconState state) {
+        add(time, MaterialMenuTrace.ANIMATE_ICON_STATE, state.ordinal(), 0);
+    }
+
+    private void add(int time, int type, int state, int payload) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            states = Arrays.copyOf(states, size * 2);
+            payloads = Arrays.copyOf(payloads, size * 2);
+        }
+
+        times[size] = time;
+        types[size] = (byte) type;
+        states[size] = (byte) state;
+        payloads[size] = payload;
+        size++;
+    }
+}
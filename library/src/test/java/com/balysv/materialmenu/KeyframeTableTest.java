@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class KeyframeTableTest {
+
+    private static final float DELTA = 0.0001f;
+
+    @Test public void writtenTableReadsBack() throws IOException {
+        final KeyframeTable table = plusToClose().compile();
+
+        final byte[] written = write(table);
+        final KeyframeTable read = KeyframeTable.read(ByteBuffer.wrap(written));
+
+        assertEquals(2, read.getStateCount());
+        assertEquals(2, read.getLineCount());
+        assertTrue(Arrays.equals(written, write(read)));
+        for (float fraction = 0; fraction <= 1; fraction += 0.125f) {
+            assertTrue(Arrays.equals(evaluate(table, 0, 1, fraction), evaluate(read, 0, 1, fraction)));
+        }
+    }
+
+    @Test public void addingStateKeepsWindows() {
+        final IconDefinition definition = plusToClose();
+        definition.setWindow(0, 1, 0, 0.5f, 1);
+        final int third = definition.addState();
+        definition.setLine(third, 0, 0, 0, 40, 40);
+        final KeyframeTable table = definition.compile();
+
+        // line 0 waits for the second half of the window set before the state was added,
+        // line 1 and the reverse transformation still span the whole transformation
+        final float[] segments = evaluate(table, 0, 1, 0.25f);
+        assertEquals(10, segments[0], DELTA);
+        assertEquals((float) (20 + 10 * Math.sin(Math.toRadians(11.25))), segments[MaterialMenuGeometry.SEGMENT_STRIDE], DELTA);
+        assertEquals((float) (20 - 10 * Math.cos(Math.toRadians(33.75))), evaluate(table, 1, 0, 0.25f)[0], DELTA);
+
+        // transformations to the new state span the whole transformation
+        assertEquals(5, evaluate(table, 0, third, 0.5f)[0], DELTA);
+        assertEquals(5, evaluate(table, third, 0, 0.5f)[0], DELTA);
+    }
+
+    @Test public void overflowingSizeIsRejected() {
+        // 65536 states of 32768 lines overflow an int to a few bytes
+        assertRejected(header(65536, 32768).array());
+    }
+
+    @Test public void negativeSizeIsRejected() {
+        assertRejected(header(-1, 2).array());
+    }
+
+    @Test public void truncatedTableIsRejected() throws IOException {
+        final byte[] written = write(plusToClose().compile());
+        assertRejected(Arrays.copyOf(written, written.length - 4));
+    }
+
+    private static IconDefinition plusToClose() {
+        final IconDefinition definition = new IconDefinition(2);
+        final int plus = definition.addState();
+        definition.setLine(plus, 0, 10, 20, 30, 20);
+        definition.setRotation(plus, 0, 0, 20, 20);
+        definition.setLine(plus, 1, 20, 10, 20, 30);
+        definition.setRotation(plus, 1, 0, 20, 20);
+        final int close = definition.addState();
+        definition.setLine(close, 0, 10, 20, 30, 20);
+        definition.setRotation(close, 0, 45, 20, 20);
+        definition.setLine(close, 1, 20, 10, 20, 30);
+        definition.setRotation(close, 1, 45, 20, 20);
+        return definition;
+    }
+
+    private static float[] evaluate(KeyframeTable table, int from, int to, float fraction) {
+        final float[] segments = new float[table.getLineCount() * MaterialMenuGeometry.SEGMENT_STRIDE];
+        table.evaluate(from, to, fraction, 1, segments);
+        return segments;
+    }
+
+    private static ByteBuffer header(int stateCount, int lineCount) {
+        final ByteBuffer data = ByteBuffer.allocate(4 * 4 + 64).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(0x464B4D4D).putInt(1).putInt(stateCount).putInt(lineCount);
+        return data;
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            KeyframeTable.read(ByteBuffer.wrap(bytes));
+            fail("Invalid keyframe table was read");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static byte[] write(KeyframeTable table) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        table.writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import android.graphics.drawable.Drawable;
+import android.view.animation.Interpolator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.AnimationState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.Stroke;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MaterialMenuDrawableTest {
+
+    private static final long FRAME_INTERVAL    = 16;
+    // a second, springs settle once the remaining motion is no longer visible
+    private static final int  MAX_SPRING_FRAMES = 60;
+
+    private ManualAnimationClock clock;
+    private MaterialMenuDrawable drawable;
+
+    @Before public void setUp() {
+        clock = new ManualAnimationClock();
+        drawable = new MaterialMenuDrawable(
+            new MaterialMenuGeometry(1, Stroke.REGULAR, MaterialMenuDrawable.DEFAULT_SCALE),
+            MaterialMenuDrawable.DEFAULT_COLOR,
+            MaterialMenuDrawable.DEFAULT_TRANSFORM_DURATION
+        );
+        drawable.setAnimationClock(clock);
+    }
+
+    @Test public void animationStepsToTargetStateOnClock() {
+        drawable.setInterpolator(new Interpolator() {
+            @Override public float getInterpolation(float input) {
+                return input;
+            }
+        });
+
+        drawable.animateIconState(IconState.ARROW);
+        clock.advance(MaterialMenuDrawable.DEFAULT_TRANSFORM_DURATION / 2);
+
+        assertTrue(drawable.isRunning());
+        assertEquals(IconState.BURGER, drawable.getIconState());
+        assertEquals(0.5f, drawable.getTransformationValue(), 0.01f);
+
+        clock.runUntilIdle(FRAME_INTERVAL);
+
+        assertFalse(drawable.isRunning());
+        assertEquals(IconState.ARROW, drawable.getIconState());
+        assertEquals(1f, drawable.getTransformationValue(), 0f);
+    }
+
+    @Test public void reversedAnimationStepsToTargetStateOnClock() {
+        drawable.setIconState(IconState.ARROW);
+
+        drawable.animateIconState(IconState.BURGER);
+        final int frames = clock.runUntilIdle(FRAME_INTERVAL);
+
+        assertTrue(frames > 1);
+        assertFalse(drawable.isRunning());
+        assertEquals(IconState.BURGER, drawable.getIconState());
+        assertEquals(0f, drawable.getTransformationValue(), 0f);
+    }
+
+    @Test public void transformationsStartedWhileHiddenJumpToEnd() {
+        drawable.setAnimationClock(null);
+        drawable.setVisible(false, false);
+
+        drawable.animateIconState(IconState.ARROW);
+        assertFalse(drawable.isRunning());
+        assertEquals(IconState.ARROW, drawable.getIconState());
+
+        drawable.springIconState(IconState.X, 0);
+        assertFalse(drawable.isRunning());
+        assertEquals(IconState.X, drawable.getIconState());
+    }
+
+    @Test public void springBackToCurrentStateLandsOnStart() {
+        drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, 0.3f);
+        assertEquals(IconState.BURGER, drawable.getIconState());
+
+        drawable.springIconState(IconState.BURGER, 0);
+        final int frames = runSpring(0f);
+
+        assertTrue(frames > 1);
+        assertTrue(frames < MAX_SPRING_FRAMES);
+        assertEquals(IconState.BURGER, drawable.getIconState());
+        assertEquals(0f, drawable.getTransformationValue(), 0f);
+    }
+
+    @Test public void springBackToCurrentStateOfReversedDragLandsOnMiddle() {
+        drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, 1.3f);
+        assertEquals(IconState.ARROW, drawable.getIconState());
+
+        drawable.springIconState(IconState.ARROW, 0);
+        final int frames = runSpring(1f);
+
+        assertTrue(frames > 1);
+        assertTrue(frames < MAX_SPRING_FRAMES);
+        assertEquals(IconState.ARROW, drawable.getIconState());
+        assertEquals(1f, drawable.getTransformationValue(), 0f);
+    }
+
+    @Test public void springToOtherStateLandsOnTarget() {
+        drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, 0.3f);
+
+        drawable.springIconState(IconState.ARROW, 0);
+        final int frames = runSpring(1f);
+
+        assertTrue(frames > 1);
+        assertTrue(frames < MAX_SPRING_FRAMES);
+        assertEquals(IconState.ARROW, drawable.getIconState());
+        assertEquals(1f, drawable.getTransformationValue(), 0f);
+    }
+
+    @Test public void springVelocityTowardsSecondIconSpeedsUpForwardSpring() {
+        drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, 0.3f);
+        drawable.springIconState(IconState.ARROW, 0);
+        final int restingFrames = runSpring(1f);
+
+        drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, 0.3f);
+        drawable.springIconState(IconState.ARROW, 2);
+        final int flungFrames = runSpring(1f);
+
+        assertTrue(flungFrames < restingFrames);
+    }
+
+    @Test public void springVelocityTowardsSecondIconSpeedsUpReversedSpring() {
+        drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, 1.7f);
+        drawable.springIconState(IconState.ARROW, 0);
+        final int restingFrames = runSpring(1f);
+
+        drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, 1.7f);
+        drawable.springIconState(IconState.ARROW, 2);
+        final int flungFrames = runSpring(1f);
+
+        assertTrue(flungFrames < restingFrames);
+    }
+
+    @Test public void nonFiniteScrubOffsetsAreIgnored() {
+        drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, 0.3f);
+
+        assertEquals(IconState.BURGER, drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, Float.NaN));
+        assertEquals(IconState.BURGER, drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, Float.POSITIVE_INFINITY));
+        assertEquals(0.3f, drawable.getTransformationValue(), 0f);
+    }
+
+    @Test public void cloneOfScrubbedBackIconShowsCurrentState() {
+        drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, 0.3f);
+        drawable.scrubTransformationOffset(AnimationState.BURGER_ARROW, 0f);
+
+        assertEquals(IconState.BURGER, clone(drawable).getIconState());
+    }
+
+    @Test public void cloneAfterInterruptedTransformationShowsNewState() {
+        drawable.springIconState(IconState.ARROW, 0);
+        drawable.setIconState(IconState.BURGER);
+
+        assertEquals(IconState.BURGER, clone(drawable).getIconState());
+    }
+
+    @Test public void cloneOfRunningTransformationShowsTargetState() {
+        drawable.springIconState(IconState.ARROW, 0);
+
+        assertEquals(IconState.ARROW, clone(drawable).getIconState());
+    }
+
+    @Test public void constantStatesAreSnapshots() {
+        final Drawable.ConstantState burger = drawable.getConstantState();
+        drawable.setIconState(IconState.X);
+        drawable.getConstantState();
+
+        assertEquals(IconState.BURGER, ((MaterialMenuDrawable) burger.newDrawable()).getIconState());
+    }
+
+    @Test public void clonesShareStateUntilChanged() {
+        final Drawable.ConstantState state = drawable.getConstantState();
+        final MaterialMenuDrawable clone = (MaterialMenuDrawable) state.newDrawable().mutate();
+
+        assertSame(state, drawable.getConstantState());
+        assertSame(state, clone.getConstantState());
+
+        clone.setIconState(IconState.X);
+
+        assertNotSame(state, clone.getConstantState());
+        assertSame(state, drawable.getConstantState());
+        assertEquals(IconState.BURGER, ((MaterialMenuDrawable) state.newDrawable()).getIconState());
+    }
+
+    @Test public void cloneKeepsConfiguration() {
+        drawable.setAutoMirrored(true);
+        drawable.setRTLEnabled(true);
+
+        final MaterialMenuDrawable clone = clone(drawable);
+
+        assertTrue(clone.isAutoMirrored());
+        assertSame(clone.getConstantState(), drawable.getConstantState());
+    }
+
+    @Test public void resetRestoresDefaults() {
+        drawable.setAutoMirrored(true);
+        drawable.setIconState(IconState.X);
+
+        drawable.reset(IconState.BURGER);
+
+        assertFalse(drawable.isAutoMirrored());
+        assertEquals(IconState.BURGER, drawable.getIconState());
+    }
+
+    @Test public void builtInTransformationsAreIgnoredWithIconDefinition() {
+        final IconDefinition definition = new IconDefinition(1);
+        definition.addState();
+        definition.addState();
+        drawable.setIconDefinition(definition.compile());
+
+        drawable.springIconState(IconState.ARROW, 0);
+        assertFalse(drawable.isRunning());
+        assertEquals(IconState.BURGER, drawable.getIconState());
+
+        drawable.setKeyframeState(1);
+        assertEquals(1, drawable.getKeyframeState());
+    }
+
+    /**
+     * Step a running spring frame by frame, checking that it only ever moves towards its target
+     *
+     * @return number of frames until the spring settled
+     */
+    private int runSpring(float target) {
+        int frames = 0;
+        float distance = Math.abs(drawable.getTransformationValue() - target);
+        while (drawable.isRunning()) {
+            assertTrue(frames < MAX_SPRING_FRAMES);
+
+            clock.advance(FRAME_INTERVAL);
+            frames++;
+
+            final float nextDistance = Math.abs(drawable.getTransformationValue() - target);
+            assertTrue(nextDistance < distance || nextDistance == 0);
+            distance = nextDistance;
+        }
+        return frames;
+    }
+
+    private static MaterialMenuDrawable clone(MaterialMenuDrawable drawable) {
+        return (MaterialMenuDrawable) drawable.getConstantState().newDrawable();
+    }
+}
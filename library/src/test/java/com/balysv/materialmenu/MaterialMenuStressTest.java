@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import android.graphics.Canvas;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.AnimationState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import static com.balysv.materialmenu.MaterialMenuDrawable.Stroke;
+import static com.balysv.materialmenu.MaterialMenuDrawable.TransformationListener;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives many drawables through simultaneous random transitions on a
+ * {@link ManualAnimationClock} and draws all of them every frame, the way a list screen does.
+ * Reports per-frame CPU time, allocated bytes and transformation updates, each of which
+ * invalidates its drawable once. Canvas calls are no-ops without the framework, so the
+ * numbers are the cost of the library itself.
+ */
+public class MaterialMenuStressTest {
+
+    private static final int  WARMUP_FRAMES  = 120;
+    private static final int  FRAMES         = 600;
+    private static final long FRAME_INTERVAL = 16;
+    private static final long SEED           = 42;
+
+    private static final IconState[] ICON_STATES = IconState.values();
+
+    private final ManualAnimationClock clock  = new ManualAnimationClock();
+    private final Canvas               canvas = new Canvas();
+    private final Random               random = new Random(SEED);
+
+    private int updates;
+
+    @Test public void stress100() {
+        stress(100);
+    }
+
+    @Test public void stress500() {
+        stress(500);
+    }
+
+    @Test public void stress1000() {
+        stress(1000);
+    }
+
+    private void stress(int count) {
+        final MaterialMenuGeometry geometry = new MaterialMenuGeometry(1, Stroke.REGULAR, MaterialMenuDrawable.DEFAULT_SCALE);
+        final TransformationListener listener = new TransformationListener() {
+            @Override public void onTransformation(AnimationState animationState, float value, float fraction) {
+                updates++;
+            }
+        };
+
+        final MaterialMenuDrawable[] drawables = new MaterialMenuDrawable[count];
+        for (int i = 0; i < count; i++) {
+            drawables[i] = new MaterialMenuDrawable(
+                geometry, MaterialMenuDrawable.DEFAULT_COLOR, MaterialMenuDrawable.DEFAULT_TRANSFORM_DURATION
+            );
+            drawables[i].setAnimationClock(clock);
+            drawables[i].setTransformationListener(listener);
+        }
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            frame(drawables);
+        }
+        updates = 0;
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final long startAllocated = allocatedBytes(threads);
+        final long startCpu = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < FRAMES; i++) {
+            frame(drawables);
+        }
+        final long cpu = threads.getCurrentThreadCpuTime() - startCpu;
+        final long allocated = allocatedBytes(threads) - startAllocated;
+
+        System.out.println(String.format("stress %4d drawables %10d cpu ns/frame %8d bytes/frame %8.1f updates/frame",
+            count, cpu / FRAMES, allocated / FRAMES, (float) updates / FRAMES));
+
+        // every icon is transforming on every frame
+        assertTrue(updates >= count * FRAMES);
+    }
+
+    private void frame(MaterialMenuDrawable[] drawables) {
+        clock.advance(FRAME_INTERVAL);
+        for (MaterialMenuDrawable drawable : drawables) {
+            if (!drawable.isRunning()) {
+                drawable.animateIconState(nextState(drawable.getIconState()));
+            }
+            drawable.draw(canvas);
+        }
+    }
+
+    private IconState nextState(IconState current) {
+        final IconState next = ICON_STATES[random.nextInt(ICON_STATES.length)];
+        return next != current ? next : nextState(current);
+    }
+
+    /**
+     * Bytes allocated by the current thread, or 0 where the JVM does not report it
+     */
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
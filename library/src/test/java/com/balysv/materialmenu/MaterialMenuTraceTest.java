@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014 Balys Valentukevicius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.balysv.materialmenu;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static com.balysv.materialmenu.MaterialMenuDrawable.IconState;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MaterialMenuTraceTest {
+
+    private static final File DRAWER_TRACE = new File("../demo/src/main/res/raw/drawer_trace.mmtr");
+
+    @Test public void writtenTraceReadsBack() throws IOException {
+        final MaterialMenuTrace trace = new MaterialMenuTrace(
+            4,
+            new int[] { 0, 8, 16, 400 },
+            new byte[] {
+                MaterialMenuTrace.SET_ICON_STATE, MaterialMenuTrace.SCRUB_TRANSFORMATION_OFFSET,
+                MaterialMenuTrace.SET_COLOR, MaterialMenuTrace.ANIMATE_ICON_STATE
+            },
+            new byte[] { (byte) IconState.ARROW.ordinal(), 0, 0, (byte) IconState.CHECK.ordinal() },
+            new int[] { 0, Float.floatToIntBits(0.5f), 0xFF00FF00, 0 }
+        );
+
+        final byte[] written = write(trace);
+        final MaterialMenuTrace read = MaterialMenuTrace.read(new ByteArrayInputStream(written));
+
+        assertEquals(4, read.size());
+        assertEquals(400, read.getDuration());
+        assertTrue(Arrays.equals(written, write(read)));
+    }
+
+    @Test public void sizeOverflowingEventBytesIsRejected() {
+        assertRejected(header(Integer.MAX_VALUE).array());
+    }
+
+    @Test public void invalidIconStateIsRejected() {
+        final ByteBuffer data = header(1);
+        data.putInt(0).put((byte) MaterialMenuTrace.ANIMATE_ICON_STATE).put((byte) IconState.values().length).putInt(0);
+        assertRejected(data.array());
+    }
+
+    @Test public void unknownEventTypeIsRejected() {
+        final ByteBuffer data = header(1);
+        data.putInt(0).put((byte) 100).put((byte) 0).putInt(0);
+        assertRejected(data.array());
+    }
+
+    @Test public void bundledDrawerTraceMatchesGenerator() throws IOException {
+        final InputStream in = new FileInputStream(DRAWER_TRACE);
+        try {
+            final byte[] bundled = write(MaterialMenuTrace.read(in));
+            assertTrue(Arrays.equals(write(DrawerTraceGenerator.generate()), bundled));
+        } finally {
+            in.close();
+        }
+    }
+
+    private static ByteBuffer header(int size) {
+        final ByteBuffer data = ByteBuffer.allocate(12 + 10).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(0x52544D4D).putInt(1).putInt(size);
+        return data;
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            MaterialMenuTrace.read(ByteBuffer.wrap(bytes));
+            fail("Invalid trace was read");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static byte[] write(MaterialMenuTrace trace) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeTo(out);
+        return out.toByteArray();
+    }
+}